@@ -0,0 +1,105 @@
+// Alignment Kernels - score-only Smith-Waterman of one query profile against many targets.
+// INSTANCE is the striped (Farrar) Vector API implementation when it is available
+// (simd/VectorAlignmentKernels.java, compiled and run with --add-modules jdk.incubator.vector) and
+// the linear-memory Gotoh recurrence otherwise; -Dgenealchemy.simd=false forces the scalar one.
+abstract class AlignmentKernels {
+    static final AlignmentKernels INSTANCE = load();
+    static final int NEG = Integer.MIN_VALUE / 4;  // minus infinity that survives subtracting gap costs
+
+    // Query encoded by the matrix, prepared once and reused for every target
+    abstract Profile profile(byte[] query, ScoringMatrix matrix);
+
+    // Best local alignment score of the profile's query against the encoded target
+    abstract int localScore(Profile profile, byte[] target);
+
+    abstract String name();
+
+    static class Profile {
+        final byte[] query;
+        final ScoringMatrix matrix;
+
+        Profile(byte[] query, ScoringMatrix matrix) {
+            this.query = query;
+            this.matrix = matrix;
+        }
+    }
+
+    private static AlignmentKernels load() {
+        if (Boolean.parseBoolean(System.getProperty("genealchemy.simd", "true"))) {
+            try {
+                return (AlignmentKernels) Class.forName("VectorAlignmentKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                // not compiled in, or jdk.incubator.vector not added to this run
+            }
+        }
+        return new Scalar();
+    }
+
+    // Gotoh's recurrence row by row over the target, keeping one row of H and of the vertical gap
+    // state, so memory is linear in the query length. Only cells with |i - j| <= band are scored;
+    // a global alignment widens the band to reach the last cell.
+    static int score(byte[] query, byte[] target, ScoringMatrix matrix, boolean local, int band) {
+        int n = query.length;
+        int m = target.length;
+        int w = local ? band : Math.max(band, Math.abs(n - m));
+        int open = matrix.firstGap();
+        int extend = matrix.gapExtend();
+        int[] h = new int[n + 1];  // H of the previous target position, by query position
+        int[] f = new int[n + 1];  // gap in the query ending at the previous target position
+        h[0] = 0;
+        f[0] = NEG;
+        for (int i = 1; i <= n; i++) {
+            h[i] = i > w ? NEG : local ? 0 : -(matrix.gapOpen() + i * extend);
+            f[i] = NEG;
+        }
+        int best = local ? 0 : NEG;
+        for (int j = 1; j <= m; j++) {
+            int from = Math.max(1, j - w);
+            int to = Math.min(n, j + w);
+            if (from > to) {
+                break;  // local band past the end of the query
+            }
+            int diagonal = h[from - 1];
+            h[from - 1] = from > 1 || j > w ? NEG : local ? 0 : -(matrix.gapOpen() + j * extend);
+            int e = NEG;  // gap in the target ending at the current query position
+            int residue = target[j - 1];
+            for (int i = from; i <= to; i++) {
+                int up = h[i - 1];
+                e = Math.max(e - extend, up - open);
+                f[i] = Math.max(f[i] - extend, h[i] - open);
+                int cell = Math.max(diagonal + matrix.score(query[i - 1], residue), Math.max(e, f[i]));
+                if (local) {
+                    cell = Math.max(cell, 0);
+                    best = Math.max(best, cell);
+                }
+                diagonal = h[i];
+                h[i] = cell;
+            }
+            if (to < n) {
+                h[to + 1] = NEG;  // leaves the band
+                f[to + 1] = NEG;
+            }
+        }
+        if (!local && n == 0 && m > 0) {
+            return -(matrix.gapOpen() + m * extend);  // no row was scored
+        }
+        return local ? best : h[n];
+    }
+
+    static final class Scalar extends AlignmentKernels {
+        @Override
+        Profile profile(byte[] query, ScoringMatrix matrix) {
+            return new Profile(query, matrix);
+        }
+
+        @Override
+        int localScore(Profile profile, byte[] target) {
+            return score(profile.query, target, profile.matrix, true, Integer.MAX_VALUE / 2);
+        }
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.awt.BorderLayout;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
+
+// Analysis Job - runs one analysis off the Event Dispatch Thread. The job is the monitor handed to
+// the kernels, so their checkpoints drive the progress bar and see the Cancel button.
+class AnalysisJob<T> extends SwingWorker<T, Void> implements AnalysisMonitor {
+    interface Task<T> {
+        T run(AnalysisMonitor monitor) throws Exception;
+    }
+
+    private final Task<T> task;
+    private final Consumer<T> onSuccess;
+    private final Consumer<Exception> onFailure;
+    private final JPanel view = new JPanel(new BorderLayout(5, 0));
+
+    // onSuccess and onFailure run on the EDT; neither runs when the job was cancelled
+    AnalysisJob(String title, Task<T> task, Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        this.task = task;
+        this.onSuccess = onSuccess;
+        this.onFailure = onFailure;
+
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> cancel(true));
+        addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                progressBar.setValue((Integer) e.getNewValue());
+            }
+        });
+        view.add(new JLabel(title), BorderLayout.WEST);
+        view.add(progressBar, BorderLayout.CENTER);
+        view.add(cancelButton, BorderLayout.EAST);
+    }
+
+    // Row with the title, a progress bar and a Cancel button
+    JPanel getView() {
+        return view;
+    }
+
+    @Override
+    protected T doInBackground() throws Exception {
+        return task.run(this);
+    }
+
+    // setProgress coalesces updates, so the kernels can report as often as they like
+    @Override
+    public void progress(long done, long total) {
+        if (total > 0) {
+            setProgress((int) Math.max(0, Math.min(100, done * 100 / total)));
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            onSuccess.accept(get());
+        } catch (CancellationException | InterruptedException ex) {
+            // cancelled while finishing, nothing to report
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            onFailure.accept(cause instanceof Exception ? (Exception) cause : ex);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+import java.util.concurrent.CancellationException;
+
+// Analysis Monitor - progress and cancellation hook that the long-running kernels report to
+interface AnalysisMonitor {
+    // Kernels call checkpoint once per this many units of work
+    int CHECK_INTERVAL = 1 << 16;
+
+    AnalysisMonitor NONE = new AnalysisMonitor() {
+        @Override
+        public void progress(long done, long total) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    void progress(long done, long total);
+
+    boolean isCancelled();
+
+    // Reports progress, or stops the calling kernel with a CancellationException once cancelled
+    default void checkpoint(long done, long total) {
+        if (isCancelled()) {
+            throw new CancellationException("Analysis cancelled");
+        }
+        progress(done, total);
+    }
+}
@@ -0,0 +1,119 @@
+// Base Kernels - complement, reverse complement, transcription and base counting over ASCII
+// sequence bytes, each in a single pass. INSTANCE is the Vector API implementation when it is
+// available (simd/VectorBaseKernels.java, compiled and run with --add-modules jdk.incubator.vector)
+// and the scalar table-driven one otherwise; -Dgenealchemy.simd=false forces the scalar one.
+abstract class BaseKernels {
+    static final BaseKernels INSTANCE = load();
+
+    // Same mapping as the original String.replace chain: upper case A/C/G/T are complemented,
+    // every other letter is upper cased. src and dst may be the same array.
+    abstract void complement(byte[] src, byte[] dst);
+
+    // dst must not be src
+    abstract void reverseComplement(byte[] src, byte[] dst);
+
+    // Replaces every from byte by to, e.g. T -> U for transcription. src and dst may be the same.
+    abstract void replace(byte[] src, byte[] dst, byte from, byte to);
+
+    // Occurrences of A, C, G and fourthBase (T or U)
+    abstract long[] countBases(byte[] src, byte fourthBase);
+
+    abstract String name();
+
+    long gcCount(byte[] src) {
+        long[] counts = countBases(src, (byte) 'T');
+        return counts[1] + counts[2];
+    }
+
+    private static BaseKernels load() {
+        if (Boolean.parseBoolean(System.getProperty("genealchemy.simd", "true"))) {
+            try {
+                return (BaseKernels) Class.forName("VectorBaseKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                // not compiled in, or jdk.incubator.vector not added to this run
+            }
+        }
+        return new Scalar();
+    }
+
+    static final class Scalar extends BaseKernels {
+        static final byte[] COMPLEMENT = new byte[256];
+
+        static {
+            for (int b = 0; b < 256; b++) {
+                COMPLEMENT[b] = (byte) (b >= 'a' && b <= 'z' ? b - 32 : b);
+            }
+            COMPLEMENT['A'] = 'T';
+            COMPLEMENT['T'] = 'A';
+            COMPLEMENT['C'] = 'G';
+            COMPLEMENT['G'] = 'C';
+        }
+
+        @Override
+        void complement(byte[] src, byte[] dst) {
+            complement(src, dst, 0, src.length);
+        }
+
+        // The tail loop of the vector kernels shares this
+        static void complement(byte[] src, byte[] dst, int from, int to) {
+            for (int i = from; i < to; i++) {
+                dst[i] = COMPLEMENT[src[i] & 0xFF];
+            }
+        }
+
+        @Override
+        void reverseComplement(byte[] src, byte[] dst) {
+            reverseComplement(src, dst, 0, src.length);
+        }
+
+        // Fills dst[from, to) from the mirrored positions of src
+        static void reverseComplement(byte[] src, byte[] dst, int from, int to) {
+            int last = src.length - 1;
+            for (int i = from; i < to; i++) {
+                dst[i] = COMPLEMENT[src[last - i] & 0xFF];
+            }
+        }
+
+        @Override
+        void replace(byte[] src, byte[] dst, byte from, byte to) {
+            replace(src, dst, from, to, 0, src.length);
+        }
+
+        static void replace(byte[] src, byte[] dst, byte from, byte to, int start, int end) {
+            for (int i = start; i < end; i++) {
+                byte b = src[i];
+                dst[i] = b == from ? to : b;
+            }
+        }
+
+        // Byte histogram in four interleaved tables, so consecutive equal bytes do not wait on
+        // the same counter
+        @Override
+        long[] countBases(byte[] src, byte fourthBase) {
+            int[][] histograms = new int[4][256];
+            int i = 0;
+            for (; i + 3 < src.length; i += 4) {
+                histograms[0][src[i] & 0xFF]++;
+                histograms[1][src[i + 1] & 0xFF]++;
+                histograms[2][src[i + 2] & 0xFF]++;
+                histograms[3][src[i + 3] & 0xFF]++;
+            }
+            for (; i < src.length; i++) {
+                histograms[0][src[i] & 0xFF]++;
+            }
+            byte[] bases = {'A', 'C', 'G', fourthBase};
+            long[] counts = new long[4];
+            for (int base = 0; base < 4; base++) {
+                for (int[] histogram : histograms) {
+                    counts[base] += histogram[bases[base] & 0xFF];
+                }
+            }
+            return counts;
+        }
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+    }
+}
@@ -0,0 +1,406 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Batch Scheduler - runs a pipeline of named steps over many sequences, one job per record, on
+// virtual threads when the runtime has them (Java 21+) and on a fixed pool of platform threads
+// otherwise; -Dgenealchemy.virtualThreads=false forces the platform pool. At most concurrency jobs
+// are in flight: the feeder blocks on a semaphore, so a file is only read as fast as its records
+// are analysed. Every step of every record is isolated, a failing step is recorded in that
+// record's Result and the batch goes on. Finished records and per-step aggregates can be read
+// while the batch is still running.
+final class BatchScheduler implements AutoCloseable {
+    private static final Metrics.Operation JOB = Metrics.operation("BatchScheduler.job");
+
+    // One operation of the pipeline; numeric results are also averaged over the batch
+    interface Step {
+        Object apply(Sequence sequence, AnalysisMonitor monitor) throws Exception;
+    }
+
+    private final List<String> names;
+    private final List<Step> steps;
+    private final int concurrency;
+    private final ExecutorService workers;
+    private final boolean virtual;
+
+    // Steps run in the map's iteration order
+    BatchScheduler(Map<String, Step> pipeline, int concurrency) {
+        if (pipeline.isEmpty()) {
+            throw new IllegalArgumentException("The pipeline has no steps");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        this.names = new ArrayList<>(pipeline.keySet());
+        this.steps = new ArrayList<>(pipeline.values());
+        this.concurrency = concurrency;
+        ExecutorService executor = virtualThreadExecutor();
+        this.virtual = executor != null;
+        this.workers = virtual ? executor : Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Two jobs per core keeps the cores busy while others wait on memory or I/O
+    BatchScheduler(Map<String, Step> pipeline) {
+        this(pipeline, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        if (Boolean.parseBoolean(System.getProperty("genealchemy.virtualThreads", "true"))) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                // before Java 21, or a preview runtime without --enable-preview
+            }
+        }
+        return null;
+    }
+
+    boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    int concurrency() {
+        return concurrency;
+    }
+
+    // Records are named #1, #2, ... in iteration order
+    Batch submit(Iterable<? extends Sequence> sequences) {
+        Batch batch = new Batch(0);
+        startFeeder(batch, () -> {
+            Iterator<? extends Sequence> it = sequences.iterator();
+            for (int i = 1; it.hasNext(); i++) {
+                batch.schedule("#" + i, it.next());
+            }
+        });
+        return batch;
+    }
+
+    // Streams the records of a FASTA/FASTQ or packed file; progress is in bytes of the file
+    Batch submit(Path file, boolean rna) throws IOException {
+        Batch batch = new Batch(Files.size(file));
+        startFeeder(batch, () -> SequenceReader.forEachSequence(file, rna, batch::schedule, batch));
+        return batch;
+    }
+
+    private interface Feed {
+        void run() throws Exception;
+    }
+
+    private void startFeeder(Batch batch, Feed feed) {
+        Thread feeder = new Thread(() -> {
+            try {
+                feed.run();
+            } catch (CancellationException ex) {
+                // cancelled while feeding, the jobs already started still finish
+            } catch (Exception ex) {
+                batch.feedError = ex;
+            } finally {
+                batch.finishFeeding();
+            }
+        }, "batch-feeder");
+        feeder.setDaemon(true);
+        feeder.start();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    // Outcome of one record: the value or the exception (or error) of every step
+    static final class Result {
+        private final int index;
+        private final String name;
+        private final int length;
+        private final Object[] values;
+        private final Throwable[] errors;
+        private final long nanos;
+
+        private Result(int index, String name, int length, Object[] values, Throwable[] errors, long nanos) {
+            this.index = index;
+            this.name = name;
+            this.length = length;
+            this.values = values;
+            this.errors = errors;
+            this.nanos = nanos;
+        }
+
+        // Position of the record in the input, from 0
+        int index() {
+            return index;
+        }
+
+        String name() {
+            return name;
+        }
+
+        int length() {
+            return length;
+        }
+
+        int stepCount() {
+            return values.length;
+        }
+
+        Object value(int step) {
+            return values[step];
+        }
+
+        // Null when the step succeeded
+        Throwable error(int step) {
+            return errors[step];
+        }
+
+        boolean isFailed() {
+            for (Throwable error : errors) {
+                if (error != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long nanos() {
+            return nanos;
+        }
+    }
+
+    // One submission. It is also the monitor handed to the steps, so cancel stops the kernels at
+    // their next checkpoint and the feeder before its next record.
+    final class Batch implements AnalysisMonitor {
+        private final Semaphore permits = new Semaphore(concurrency);
+        private final List<Result> finished = new ArrayList<>();
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final LongAdder[] succeededBySteps = adders();
+        private final LongAdder[] failedBySteps = adders();
+        private final LongAdder[] numericCounts = adders();
+        private final DoubleAdder[] numericSums = new DoubleAdder[steps.size()];
+        private final long totalBytes;
+        private volatile long bytesRead;
+        private volatile boolean cancelled;
+        private volatile Exception feedError;
+        private boolean feeding = true;  // guarded by finished
+        private int running;             // guarded by finished
+
+        private Batch(long totalBytes) {
+            this.totalBytes = totalBytes;
+            for (int s = 0; s < numericSums.length; s++) {
+                numericSums[s] = new DoubleAdder();
+            }
+        }
+
+        private LongAdder[] adders() {
+            LongAdder[] adders = new LongAdder[steps.size()];
+            for (int s = 0; s < adders.length; s++) {
+                adders[s] = new LongAdder();
+            }
+            return adders;
+        }
+
+        // Called by the feeder; blocks while concurrency jobs are in flight
+        private void schedule(String name, Sequence sequence) {
+            if (cancelled) {
+                throw new CancellationException("Batch cancelled");
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Batch feeder interrupted");
+            }
+            int index = submitted.getAndIncrement();
+            synchronized (finished) {
+                running++;
+            }
+            try {
+                workers.execute(() -> run(index, name, sequence));
+            } catch (RuntimeException ex) {
+                complete(null);  // scheduler closed
+                throw ex;
+            }
+        }
+
+        // A record always ends with a Result; when the job broke outside its steps every step holds
+        // that failure, without counting in the per-step totals
+        private void run(int index, String name, Sequence sequence) {
+            long start = System.nanoTime();
+            Result result = null;
+            try {
+                result = JOB.time(sequence.getLength(), () -> analyze(index, name, sequence));
+            } catch (Throwable ex) {
+                Throwable[] errors = new Throwable[steps.size()];
+                Arrays.fill(errors, ex);
+                result = new Result(index, name, sequence.getLength(), new Object[steps.size()], errors, System.nanoTime() - start);
+            } finally {
+                complete(result);
+            }
+        }
+
+        private Result analyze(int index, String name, Sequence sequence) {
+            long start = System.nanoTime();
+            Object[] values = new Object[steps.size()];
+            Throwable[] errors = new Throwable[steps.size()];
+            for (int s = 0; s < values.length; s++) {
+                try {
+                    if (cancelled) {
+                        throw new CancellationException("Batch cancelled");
+                    }
+                    Object value = steps.get(s).apply(sequence, this);
+                    values[s] = value;
+                    succeededBySteps[s].increment();
+                    if (value instanceof Number) {
+                        numericCounts[s].increment();
+                        numericSums[s].add(((Number) value).doubleValue());
+                    }
+                } catch (Throwable ex) {
+                    errors[s] = ex;  // an Error too, e.g. a StackOverflowError on one huge record, fails only that step
+                    failedBySteps[s].increment();
+                }
+            }
+            return new Result(index, name, sequence.getLength(), values, errors, System.nanoTime() - start);
+        }
+
+        private void complete(Result result) {
+            permits.release();
+            synchronized (finished) {
+                if (result != null) {
+                    finished.add(result);
+                    if (result.isFailed()) {
+                        failed.incrementAndGet();
+                    }
+                }
+                running--;
+                finished.notifyAll();
+            }
+        }
+
+        private void finishFeeding() {
+            synchronized (finished) {
+                feeding = false;
+                finished.notifyAll();
+            }
+        }
+
+        // The feeder reports the reader's progress through here
+        @Override
+        public void progress(long done, long total) {
+            bytesRead = done;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // Stops feeding; running steps stop at their next checkpoint, the rest are skipped
+        void cancel() {
+            cancelled = true;
+        }
+
+        // Waits for every record to finish; false when the timeout elapsed first
+        boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (finished) {
+                while (feeding || running > 0) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(finished, left);
+                }
+            }
+            return true;
+        }
+
+        void await() throws InterruptedException {
+            synchronized (finished) {
+                while (feeding || running > 0) {
+                    finished.wait();
+                }
+            }
+        }
+
+        boolean isDone() {
+            synchronized (finished) {
+                return !feeding && running == 0;
+            }
+        }
+
+        // Records finished since the first from ones, in completion order, so a caller can
+        // poll for new results while the batch runs
+        List<Result> finishedSince(int from) {
+            synchronized (finished) {
+                return new ArrayList<>(finished.subList(Math.min(from, finished.size()), finished.size()));
+            }
+        }
+
+        int submittedCount() {
+            return submitted.get();
+        }
+
+        int finishedCount() {
+            synchronized (finished) {
+                return finished.size();
+            }
+        }
+
+        // Records with at least one failed step
+        int failedCount() {
+            return failed.get();
+        }
+
+        // Bytes of the input file read so far, and the file size; both 0 for in-memory input
+        long bytesRead() {
+            return bytesRead;
+        }
+
+        long totalBytes() {
+            return totalBytes;
+        }
+
+        // Why the input stopped early, e.g. a malformed file; null when it was read to the end
+        Exception feedError() {
+            return feedError;
+        }
+
+        int stepCount() {
+            return steps.size();
+        }
+
+        String stepName(int step) {
+            return names.get(step);
+        }
+
+        long succeeded(int step) {
+            return succeededBySteps[step].sum();
+        }
+
+        long failed(int step) {
+            return failedBySteps[step].sum();
+        }
+
+        // Mean of the step's numeric results so far, NaN when it returned none
+        double mean(int step) {
+            long count = numericCounts[step].sum();
+            return count == 0 ? Double.NaN : numericSums[step].sum() / count;
+        }
+    }
+}
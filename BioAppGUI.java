@@ -1,212 +1,19 @@
 import java.awt.*;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import javax.swing.*;
 
-// Abstract Base Class - Demonstrates Abstraction
-abstract class Sequence {
-    protected String sequence;
-
-    public Sequence(String sequence) {
-        this.sequence = sequence;
-    }
-
-    public abstract boolean validateSequence();
-
-    public int getLength() {
-        return sequence.length();
-    }
-
-    public String getSequence() {
-        return sequence;
-    }
-}
-
-// DNA Sequence Class - Demonstrates Inheritance and Polymorphism
-class DNASequence extends Sequence {
-    public DNASequence(String sequence) {
-        super(sequence);
-    }
-
-    @Override
-    public boolean validateSequence() {
-        return sequence.matches("[ATCG]+");
-    }
-
-    public String findComplement() {
-        return sequence.replace('A', 't').replace('T', 'a').replace('C', 'g').replace('G', 'c').toUpperCase();
-    }
-
-    public double calculateGCContent() {
-        long gcCount = sequence.chars().filter(c -> c == 'G' || c == 'C').count();
-        return (gcCount / (double) sequence.length()) * 100;
-    }
-
-    public RNASequence transcribeToRNA() {
-        return new RNASequence(sequence.replace('T', 'U'));
-    }
-
-    public List<String> findPalindrome() {
-    List<String> palindromes = new ArrayList<>();
-    int length = sequence.length();
-    for (int i = 0; i < length; i++) {
-        for (int j = i + 2; j <= length; j++) { // Minimum length of 2 for palindromes
-            String substring = sequence.substring(i, j);
-            String reverseComplement = new StringBuilder(substring)
-                    .reverse()
-                    .toString()
-                    .replace('A', 't')
-                    .replace('T', 'a')
-                    .replace('C', 'g')
-                    .replace('G', 'c')
-                    .toUpperCase();
-            if (substring.equals(reverseComplement)) {
-                palindromes.add(substring);
-            }
-        }
-    }
-    return palindromes;
-}
-public List<Integer> findMotif(String motif) {
-    List<Integer> positions = new ArrayList<>();
-    int index = sequence.indexOf(motif);
-    while (index != -1) {
-        positions.add(index + 1); // 1-based indexing
-        index = sequence.indexOf(motif, index + 1);
-    }
-    return positions;
-}
-public Map<Character, Integer> countNucleotides() {
-    Map<Character, Integer> counts = new HashMap<>();
-    counts.put('A', 0);
-    counts.put('T', 0);
-    counts.put('C', 0);
-    counts.put('G', 0);
-    for (char c : sequence.toCharArray()) {
-        counts.put(c, counts.getOrDefault(c, 0) + 1);
-    }
-    return counts;
-}
-
-}
-
-// RNA Sequence Class - Demonstrates Inheritance and Polymorphism
-class RNASequence extends Sequence {
-    public RNASequence(String sequence) {
-        super(sequence);
-    }
-
-    @Override
-    public boolean validateSequence() {
-        return sequence.matches("[AUCG]+");
-    }
-
-    public double calculateGCContent() {
-        long gcCount = sequence.chars().filter(c -> c == 'G' || c == 'C').count();
-        return (gcCount / (double) sequence.length()) * 100;
-    }
-
-    public ProteinSequence transcribeToProtein() {
-        return new ProteinSequence(transcribeToProtein(sequence));
-    }
-
-    // Transcribes RNA sequence into a protein sequence using the codon map
-    private String transcribeToProtein(String rnaSequence) {
-        Map<String, String> codonMap = new HashMap<>();
-        codonMap.put("AUG", "M"); // Methionine (start codon)
-        codonMap.put("UUU", "F"); // Phenylalanine
-        codonMap.put("UUC", "F"); // Phenylalanine
-        codonMap.put("UUA", "L"); // Leucine
-        codonMap.put("UUG", "L"); // Leucine
-        codonMap.put("CUU", "L"); // Leucine
-        codonMap.put("CUC", "L"); // Leucine
-        codonMap.put("CUA", "L"); // Leucine
-        codonMap.put("CUG", "L"); // Leucine
-        codonMap.put("AUU", "I"); // Isoleucine
-        codonMap.put("AUC", "I"); // Isoleucine
-        codonMap.put("AUA", "I"); // Isoleucine
-        codonMap.put("GUU", "V"); // Valine
-        codonMap.put("GUC", "V"); // Valine
-        codonMap.put("GUA", "V"); // Valine
-        codonMap.put("GUG", "V"); // Valine
-        codonMap.put("GGU", "G"); // Glycine
-        codonMap.put("GGC", "G"); // Glycine
-        codonMap.put("GGA", "G"); // Glycine
-        codonMap.put("GGG", "G"); // Glycine
-        // (Add all remaining codons to complete the codon map...)
-
-        StringBuilder proteinSequence = new StringBuilder();
-        for (int i = 0; i < rnaSequence.length() - 2; i += 3) {
-            String codon = rnaSequence.substring(i, i + 3);
-            String aminoAcid = codonMap.getOrDefault(codon, "");
-            if (aminoAcid.isEmpty()) break; // Stop translation if invalid codon
-            proteinSequence.append(aminoAcid);
-        }
-
-        return proteinSequence.toString();
-    }
-    public List<String> findPalindrome() {
-    List<String> palindromes = new ArrayList<>();
-    int length = sequence.length();
-    for (int i = 0; i < length; i++) {
-        for (int j = i + 2; j <= length; j++) { // Minimum length of 2 for palindromes
-            String substring = sequence.substring(i, j);
-            String reverseComplement = new StringBuilder(substring)
-                    .reverse()
-                    .toString()
-                    .replace('A', 'u')
-                    .replace('U', 'a')
-                    .replace('C', 'g')
-                    .replace('G', 'c')
-                    .toUpperCase();
-            if (substring.equals(reverseComplement)) {
-                palindromes.add(substring);
-            }
-        }
-    }
-    return palindromes;
-}
-public List<Integer> findMotif(String motif) {
-    List<Integer> positions = new ArrayList<>();
-    int index = sequence.indexOf(motif);
-    while (index != -1) {
-        positions.add(index + 1); // 1-based indexing
-        index = sequence.indexOf(motif, index + 1);
-    }
-    return positions;
-}
-public Map<Character, Integer> countNucleotides() {
-    Map<Character, Integer> counts = new HashMap<>();
-    counts.put('A', 0);
-    counts.put('U', 0);
-    counts.put('C', 0);
-    counts.put('G', 0);
-    for (char c : sequence.toCharArray()) {
-        counts.put(c, counts.getOrDefault(c, 0) + 1);
-    }
-    return counts;
-}
-
-}
-
-// Protein Sequence Class
-class ProteinSequence extends Sequence {
-    public ProteinSequence(String sequence) {
-        super(sequence);
-    }
-
-    @Override
-    public boolean validateSequence() {
-        return sequence.matches("[ACDEFGHIKLMNPQRSTVWY]+");
-    }
-}
-
 // Wrapper Class - Demonstrates Composition (Wrapper Class for Extra Functionalities)
 class SequenceWrapper {
     private Sequence sequence;
-    private List<String> history = new ArrayList<>();
+    private List<String> history = Collections.synchronizedList(new ArrayList<>());
 
     public SequenceWrapper(Sequence sequence) {
         this.sequence = sequence;
@@ -216,12 +23,40 @@ class SequenceWrapper {
         return sequence;
     }
 
+    // Result of an operation on this sequence from the shared ResultCache, computed on a miss.
+    // Every call is recorded in the history, whether or not it was cached.
+    public <V extends Serializable> V analyze(String operation, String parameters, Callable<V> computation) throws Exception {
+        history.add(parameters.isEmpty() ? operation : operation + " (" + parameters + ")");
+        return ResultCache.SHARED.computeIfAbsent(ResultCache.key(sequence, operation, parameters), computation);
+    }
+
+    public List<String> getHistory() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
 }
 
 // GUI Implementation Class with Encapsulation and User Interaction
 public class BioAppGUI extends JFrame {
     private JPanel contentPanel = new JPanel(new CardLayout());
     private JTextField sequenceInput = new JTextField(20);
+    private PackedSequence loadedSequence;  // record loaded from a FASTA/FASTQ file, used instead of the text
+    private String loadedLabel;
+    private String loadedName;  // record name of the loaded sequence, used in exports
+    private SequenceWrapper currentInput;  // sequence built from the input, reused until the input changes
+    private IncrementalAnalysis liveAnalysis = new IncrementalAnalysis();  // follows every edit of the input
+    private JLabel liveStats = new JLabel(" ");
+    private JPanel jobsPanel = new JPanel(new GridLayout(0, 1));  // one row per running analysis
+    private static final int MAX_VIEWER_HITS = 10_000_000;  // 160 MB of hits; Export Results... writes any number
+    // Every task handles N: the kernels skip or carry it, so loaded assemblies with N runs are analysed
+    private static final int TASK_MODE = SequenceValidator.ALLOW_N;
+    private static final ParallelAnalysis PARALLEL = new ParallelAnalysis();
+    private Map<String, Runnable> pageBuilders = new HashMap<>();  // pages not built yet, by card name
+
+    // Images live next to the user's downloads by default; override with -Dgenealchemy.homeImage=...
+    static final String HOME_IMAGE = System.getProperty("genealchemy.homeImage", "/Users/gmedhareddy/Downloads/medhaapp.jpeg");
+    static final String ABOUT_IMAGE = System.getProperty("genealchemy.aboutImage", "/Users/nandanareddy/Downloads/aboutus.jpeg");
 
 
 
@@ -233,9 +68,13 @@ public class BioAppGUI extends JFrame {
 
         setupNavigationPanel();
         setupHomePage();
-        setupAboutUsPage();
-        setupUtilitiesPage();
+        // The other pages are built on first navigation, see showPage
+        pageBuilders.put("About", this::setupAboutUsPage);
+        pageBuilders.put("Utilities", this::setupUtilitiesPage);
+        pageBuilders.put("DNA Tasks", this::setupDNATasksPage);
+        pageBuilders.put("RNA Tasks", this::setupRNATasksPage);
         add(contentPanel);
+        add(jobsPanel, BorderLayout.SOUTH);
     }
 
     private void setupNavigationPanel() {
@@ -289,16 +128,44 @@ public class BioAppGUI extends JFrame {
         dnaButton.addActionListener(e -> showDNATasks());
         rnaButton.addActionListener(e -> showRNATasks());
 
+    // Button for loading large sequences from a FASTA/FASTQ file instead of pasting them
+        JButton loadButton = new JButton("Load FASTA/FASTQ...");
+        loadButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        loadButton.addActionListener(e -> loadSequenceFile());
+        JButton batchButton = new JButton("Batch Analyze File...");
+        batchButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        batchButton.addActionListener(e -> batchAnalyzeFile());
+        sequenceInput.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { clearLoadedSequence(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { clearLoadedSequence(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { }
+        });
+        liveAnalysis.attach(sequenceInput.getDocument(), this::refreshLiveStats);
+        liveStats.setAlignmentX(Component.CENTER_ALIGNMENT);
+        JButton watchButton = new JButton("Watch Motifs...");
+        watchButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        watchButton.addActionListener(e -> {
+            MotifSearcher searcher = askForMotifs();
+            if (searcher != null) {
+                liveAnalysis.setMotifs(searcher);
+                refreshLiveStats();
+            }
+        });
+
     // Add the sequence input panel and buttons to the home panel
         homePanel.add(sequencePanel);  // Add the sequence input panel
+        homePanel.add(liveStats);  // Counts, GC content and watched motifs, updated as the input is typed
+        homePanel.add(watchButton);
         homePanel.add(Box.createVerticalStrut(10));  // Add some space between the input field and the buttons
+        homePanel.add(loadButton);
+        homePanel.add(batchButton);
         homePanel.add(dnaButton);
         homePanel.add(rnaButton);
 
     // Add the image at the bottom
-        ImageIcon homeImage = new ImageIcon("/Users/gmedhareddy/Downloads/medhaapp.jpeg");  // Correct image path
-        Image scaledImage = homeImage.getImage().getScaledInstance(300, 200, Image.SCALE_SMOOTH);  // Resize image
-        JLabel imageLabel = new JLabel(new ImageIcon(scaledImage));  // Create a label with the image
+        JLabel imageLabel = new JLabel();  // Filled in once the image is decoded in the background
+        imageLabel.setPreferredSize(new Dimension(300, 200));
+        ImageCache.load(imageLabel, HOME_IMAGE, 300, 200);
         imageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);  // Center the image horizontally
 
         homePanel.add(Box.createVerticalStrut(20));  // Add space above the image
@@ -309,8 +176,175 @@ public class BioAppGUI extends JFrame {
         contentPanel.add(homePanel, "Home");
 }
 
+    // Loads the first record of a FASTA/FASTQ or packed file into packed storage in the background
+    // and shows its name in the input field; the other records are only counted
+    private void loadSequenceFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path path = chooser.getSelectedFile().toPath();
+        List<String> names = new ArrayList<>();
+        AnalysisJob<PackedSequence> job = new AnalysisJob<>("Loading " + path.getFileName(), monitor -> {
+            Sequence first = SequenceReader.firstSequence(path, false, names, monitor);
+            return first == null ? null : first.getPacked();
+        }, packed -> {
+            if (packed == null) {
+                JOptionPane.showMessageDialog(this, "No records found in " + path.getFileName());
+                return;
+            }
+            String label = "[" + names.get(0) + ", " + packed.length() + " bases]";
+            sequenceInput.setText(label);  // clears any earlier loaded sequence through the listener
+            loadedSequence = packed;
+            loadedLabel = label;
+            loadedName = names.get(0);
+            refreshLiveStats();
+            if (names.size() > 1) {
+                JOptionPane.showMessageDialog(this, "Loaded " + names.get(0) + " (first of " + names.size() + " records).");
+            }
+        }, ex -> JOptionPane.showMessageDialog(this, "Could not read " + path.getFileName() + ": " + ex.getMessage()));
+        startJob(job);
+    }
+
+    // Runs a fixed DNA pipeline over every record of a FASTA/FASTQ file with BatchScheduler; one
+    // row per record is added to the window as records finish, the means follow at the end
+    private void batchAnalyzeFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path path = chooser.getSelectedFile().toPath();
+        Map<String, BatchScheduler.Step> pipeline = new LinkedHashMap<>();
+        pipeline.put("length", (seq, monitor) -> seq.getLength());
+        pipeline.put("gc_percent", (seq, monitor) -> ((DNASequence) seq).statistics(monitor).gcContent());
+        pipeline.put("orfs", (seq, monitor) -> ((DNASequence) seq).findORFs(30, GeneticCode.STANDARD, monitor).size());
+        pipeline.put("palindromes", (seq, monitor) -> {
+            long[] count = {0};
+            ((DNASequence) seq).findPalindrome((start, end, label, arm) -> count[0]++, monitor);
+            return count[0];
+        });
+
+        JTextArea output = new JTextArea(20, 60);
+        output.setEditable(false);
+        output.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        output.append("record\t" + String.join("\t", pipeline.keySet()) + "\n");
+        JDialog window = new JDialog(this, "Batch: " + path.getFileName(), false);
+        window.add(new JScrollPane(output));
+        window.pack();
+        window.setLocationRelativeTo(this);
+        window.setVisible(true);
+
+        AnalysisJob<String> job = new AnalysisJob<>("Batch " + path.getFileName(), monitor -> {
+            try (BatchScheduler scheduler = new BatchScheduler(pipeline)) {
+                BatchScheduler.Batch batch = scheduler.submit(path, false);
+                int shown = 0;
+                boolean done = false;
+                try {
+                    while (!done) {
+                        done = batch.await(250, TimeUnit.MILLISECONDS);
+                        List<BatchScheduler.Result> results = batch.finishedSince(shown);
+                        shown += results.size();
+                        String rows = batchRows(results);
+                        SwingUtilities.invokeLater(() -> output.append(rows));
+                        monitor.progress(batch.bytesRead(), batch.totalBytes());
+                    }
+                } catch (InterruptedException ex) {
+                    batch.cancel();  // the Cancel button interrupts this thread
+                    throw ex;
+                }
+                return batchSummary(batch, scheduler);
+            }
+        }, output::append, ex -> output.append("Batch failed: " + ex.getMessage() + "\n"));
+        startJob(job);
+    }
+
+    private static String batchRows(List<BatchScheduler.Result> results) {
+        StringBuilder rows = new StringBuilder();
+        for (BatchScheduler.Result result : results) {
+            rows.append(result.name());
+            for (int step = 0; step < result.stepCount(); step++) {
+                Throwable error = result.error(step);
+                Object value = result.value(step);
+                rows.append('\t').append(error != null ? "error: " + error.getMessage()
+                        : value instanceof Double ? String.format("%.2f", (Double) value) : String.valueOf(value));
+            }
+            rows.append('\n');
+        }
+        return rows.toString();
+    }
+
+    private static String batchSummary(BatchScheduler.Batch batch, BatchScheduler scheduler) {
+        StringBuilder summary = new StringBuilder("\n").append(batch.finishedCount()).append(" records, ")
+                .append(batch.failedCount()).append(" with failed steps, on ")
+                .append(scheduler.usesVirtualThreads() ? "virtual threads" : "platform threads")
+                .append(" (at most ").append(scheduler.concurrency()).append(" at a time)\n");
+        for (int step = 0; step < batch.stepCount(); step++) {
+            summary.append("mean ").append(batch.stepName(step)).append(": ")
+                    .append(String.format("%.2f", batch.mean(step))).append('\n');
+        }
+        if (batch.feedError() != null) {
+            summary.append("Stopped reading the file: ").append(batch.feedError().getMessage()).append('\n');
+        }
+        return summary.toString();
+    }
+
+    // Live statistics of the typed input; the edit listener keeps them current without a rescan
+    private void refreshLiveStats() {
+        if (loadedSequence != null || liveAnalysis.length() == 0) {
+            liveStats.setText(" ");  // a loaded record is analysed by the task buttons
+            return;
+        }
+        IncrementalAnalysis live = liveAnalysis;
+        StringBuilder text = new StringBuilder("Length: ").append(live.length())
+                .append("   A: ").append(live.count(PackedSequence.A))
+                .append("  C: ").append(live.count(PackedSequence.C))
+                .append("  G: ").append(live.count(PackedSequence.G))
+                .append("  T/U: ").append(live.count(PackedSequence.T))
+                .append("   GC: ").append(String.format("%.2f", live.gcContent())).append("%");
+        if (live.count(PackedSequence.INVALID) > 0) {
+            text.append("   Invalid: ").append(live.count(PackedSequence.INVALID));
+        }
+        MotifSearcher motifs = live.motifs();
+        for (int id = 0; motifs != null && id < motifs.motifCount(); id++) {
+            text.append("   ").append(motifs.motif(id)).append(": ").append(live.hitCount(id));
+        }
+        liveStats.setText(text.toString());
+    }
+
+    // Swing calls the live analysis listener first (listeners run last added first), while the
+    // loaded record is still set, so the statistics are refreshed again once it is dropped
+    private void clearLoadedSequence() {
+        currentInput = null;
+        if (loadedSequence != null && !sequenceInput.getText().equals(loadedLabel)) {
+            loadedSequence = null;
+            loadedLabel = null;
+            loadedName = null;
+            refreshLiveStats();
+        }
+    }
+
+    // The same Sequence object is returned until the input changes, so its content digest and the
+    // cached results stay valid across clicks
+    private DNASequence currentDNA() {
+        if (currentInput == null || !(currentInput.getSequence() instanceof DNASequence)) {
+            currentInput = new SequenceWrapper(loadedSequence != null ? new DNASequence(loadedSequence) : new DNASequence(sequenceInput.getText()));
+        }
+        return (DNASequence) currentInput.getSequence();
+    }
+
+    private RNASequence currentRNA() {
+        if (currentInput == null || !(currentInput.getSequence() instanceof RNASequence)) {
+            currentInput = new SequenceWrapper(loadedSequence != null ? new RNASequence(loadedSequence) : new RNASequence(sequenceInput.getText()));
+        }
+        return (RNASequence) currentInput.getSequence();
+    }
+
 
     private void showDNATasks() {
+        showPage("DNA Tasks");
+    }
+
+    private void setupDNATasksPage() {
         JPanel dnaPanel = new JPanel();
         JButton complementButton = new JButton("Find Complement");
         JButton gcButton = new JButton("Calculate GC Content");
@@ -318,13 +352,19 @@ public class BioAppGUI extends JFrame {
         JButton palindromeButton = new JButton("Find Palindromes");
         JButton motifButton = new JButton("Find Motif");
         JButton countButton = new JButton("Count Nucleotides");
-
-        complementButton.addActionListener(e -> analyzeDNASequence(new DNASequence(sequenceInput.getText())));
-        gcButton.addActionListener(e -> calculateGCContent(new DNASequence(sequenceInput.getText())));
-        transcribeButton.addActionListener(e -> transcribeToRNA(new DNASequence(sequenceInput.getText())));
-        palindromeButton.addActionListener(e -> findDNAPalindrome(new DNASequence(sequenceInput.getText())));
-        motifButton.addActionListener(e -> findDNAMotif(new DNASequence(sequenceInput.getText())));
-        countButton.addActionListener(e -> countDNANucleotides(new DNASequence(sequenceInput.getText())));
+        JButton orfButton = new JButton("Find ORFs");
+        JButton alignButton = new JButton("Align to Reference");
+        JButton exportButton = new JButton("Export Results...");
+
+        complementButton.addActionListener(e -> analyzeDNASequence(currentDNA()));
+        gcButton.addActionListener(e -> calculateGCContent(currentDNA()));
+        transcribeButton.addActionListener(e -> transcribeToRNA(currentDNA()));
+        palindromeButton.addActionListener(e -> findDNAPalindrome(currentDNA()));
+        motifButton.addActionListener(e -> findDNAMotif(currentDNA()));
+        countButton.addActionListener(e -> countDNANucleotides(currentDNA()));
+        orfButton.addActionListener(e -> findDNAORFs(currentDNA()));
+        alignButton.addActionListener(e -> alignToReference(currentDNA()));
+        exportButton.addActionListener(e -> exportResults(currentDNA()));
 
         dnaPanel.add(complementButton);
         dnaPanel.add(gcButton);
@@ -332,145 +372,331 @@ public class BioAppGUI extends JFrame {
         dnaPanel.add(palindromeButton);
         dnaPanel.add(motifButton);
         dnaPanel.add(countButton);
+        dnaPanel.add(orfButton);
+        dnaPanel.add(alignButton);
+        dnaPanel.add(exportButton);
         contentPanel.add(dnaPanel, "DNA Tasks");
-        showPage("DNA Tasks");
-
     }
 
     private void showRNATasks() {
+        showPage("RNA Tasks");
+    }
+
+    private void setupRNATasksPage() {
         JPanel rnaPanel = new JPanel();
         JButton gcButton = new JButton("Calculate GC Content");
         JButton transcribeButton = new JButton("Transcribe to Protein");
         JButton palindromeButton = new JButton("Find Palindromes");
         JButton motifButton = new JButton("Find Motif");
         JButton countButton = new JButton("Count Nucleotides");
+        JButton alignButton = new JButton("Align to Reference");
+        JButton exportButton = new JButton("Export Results...");
 
-        gcButton.addActionListener(e -> calculateGCContent(new RNASequence(sequenceInput.getText())));
-        transcribeButton.addActionListener(e -> transcribeToProtein(new RNASequence(sequenceInput.getText())));
-        palindromeButton.addActionListener(e -> findRNAPalindrome(new RNASequence(sequenceInput.getText())));
-        motifButton.addActionListener(e -> findRNAMotif(new RNASequence(sequenceInput.getText())));
-        countButton.addActionListener(e -> countRNANucleotides(new RNASequence(sequenceInput.getText())));
+        gcButton.addActionListener(e -> calculateGCContent(currentRNA()));
+        transcribeButton.addActionListener(e -> transcribeToProtein(currentRNA()));
+        palindromeButton.addActionListener(e -> findRNAPalindrome(currentRNA()));
+        motifButton.addActionListener(e -> findRNAMotif(currentRNA()));
+        countButton.addActionListener(e -> countRNANucleotides(currentRNA()));
+        alignButton.addActionListener(e -> alignToReference(currentRNA()));
+        exportButton.addActionListener(e -> exportResults(currentRNA()));
 
         rnaPanel.add(gcButton);
         rnaPanel.add(transcribeButton);
         rnaPanel.add(palindromeButton);
         rnaPanel.add(motifButton);
         rnaPanel.add(countButton);
+        rnaPanel.add(alignButton);
+        rnaPanel.add(exportButton);
         contentPanel.add(rnaPanel, "RNA Tasks");
-        showPage("RNA Tasks");
+    }
+
+    // Runs an analysis of the current input through the result cache; title and parameters are
+    // the cache key together with the sequence content
+    private void runAnalysis(String title, String parameters, AnalysisJob.Task<String> task) {
+        SequenceWrapper input = currentInput;
+        runAnalysis(title, monitor -> input.analyze(title, parameters, () -> task.run(monitor)));
+    }
+
+    // Runs an analysis off the EDT with a progress row in the jobs panel, then shows its message
+    private void runAnalysis(String title, AnalysisJob.Task<String> task) {
+        AnalysisJob<String> job = new AnalysisJob<>(title, task,
+                message -> JOptionPane.showMessageDialog(this, message),
+                ex -> JOptionPane.showMessageDialog(this, title + " failed: " + ex.getMessage()));
+        startJob(job);
+    }
+
+    // Shows the job's progress row until it finishes, then starts it
+    private void startJob(AnalysisJob<?> job) {
+        job.addPropertyChangeListener(e -> {
+            if ("state".equals(e.getPropertyName()) && e.getNewValue() == SwingWorker.StateValue.DONE) {
+                jobsPanel.remove(job.getView());
+                jobsPanel.revalidate();
+                jobsPanel.repaint();
+            }
+        });
+        jobsPanel.add(job.getView());
+        jobsPanel.revalidate();
+        job.execute();
     }
 
     private void analyzeDNASequence(DNASequence dnaSeq) {
-        if (dnaSeq.validateSequence()) {
-            String complement = dnaSeq.findComplement();
-            JOptionPane.showMessageDialog(this, "Complement: " + complement);
-        } else {
-            JOptionPane.showMessageDialog(this, "Invalid DNA sequence!");
-        }
+        runAnalysis("Find Complement", "", monitor -> {
+            if (!dnaSeq.validateSequence(TASK_MODE)) {
+                return "Invalid DNA sequence! " + dnaSeq.validation().describeProblem(TASK_MODE);
+            }
+            return "Complement: " + dnaSeq.findComplement();
+        });
     }
 
     private void calculateGCContent(Sequence seq) {
-        if (seq.validateSequence()) {
-            double gcContent = seq instanceof DNASequence ? 
-                ((DNASequence) seq).calculateGCContent() : ((RNASequence) seq).calculateGCContent();
-            JOptionPane.showMessageDialog(this, "GC Content: " + gcContent + "%");
-        } else {
-            JOptionPane.showMessageDialog(this, "Invalid sequence!");
+        runAnalysis("GC Content", "", monitor -> {
+            SequenceStats stats = statistics(seq, monitor);
+            if (!stats.isValid(true)) {
+                return "Invalid sequence! " + stats.describeProblem();
+            }
+            return "GC Content: " + stats.gcContent() + "%\n" +
+                    "GC Skew: " + stats.gcSkew() + "\n" +
+                    (stats.isRNA() ? "AU" : "AT") + " Skew: " + stats.atSkew();
+        });
+    }
+
+    // Loaded records of two chunks or more are counted on every core, see ParallelAnalysis
+    private static SequenceStats statistics(Sequence seq, AnalysisMonitor monitor) {
+        if (PARALLEL.splits(seq)) {
+            return PARALLEL.statistics(seq, monitor);
         }
+        return seq instanceof DNASequence ? ((DNASequence) seq).statistics(monitor) : ((RNASequence) seq).statistics(monitor);
     }
 
     private void transcribeToRNA(DNASequence dnaSeq) {
-        if (dnaSeq.validateSequence()) {
-            RNASequence rnaSeq = dnaSeq.transcribeToRNA();
-            JOptionPane.showMessageDialog(this, "Transcribed RNA: " + rnaSeq.getSequence());
-        } else {
-            JOptionPane.showMessageDialog(this, "Invalid DNA sequence!");
-        }
+        runAnalysis("Transcribe to RNA", "", monitor -> {
+            if (!dnaSeq.validateSequence(TASK_MODE)) {
+                return "Invalid DNA sequence! " + dnaSeq.validation().describeProblem(TASK_MODE);
+            }
+            return "Transcribed RNA: " + dnaSeq.transcribeToRNA().getSequence();
+        });
     }
 
     private void findDNAPalindrome(DNASequence dnaSeq) {
-    if (dnaSeq.validateSequence()) {
-        List<String> palindromes = dnaSeq.findPalindrome();
-        String message = palindromes.isEmpty() ? "No palindromes found!" : "Palindromes: " + String.join(", ", palindromes);
-        JOptionPane.showMessageDialog(this, message);
-    } else {
-        JOptionPane.showMessageDialog(this, "Invalid DNA sequence!");
+        showHits("DNA Palindromes", "", dnaSeq, new String[]{"palindrome"}, "Arm", dnaSeq::findPalindrome);
     }
-}
+
     private void findDNAMotif(DNASequence dnaSeq) {
-    if (dnaSeq.validateSequence()) {
-        String motif = JOptionPane.showInputDialog(this, "Enter motif to search:");
-        if (motif != null && !motif.isEmpty()) {
-            List<Integer> positions = dnaSeq.findMotif(motif.toUpperCase());
-            String message = positions.isEmpty() ? "Motif not found!" : "Motif found at positions: " + positions;
-            JOptionPane.showMessageDialog(this, message);
-        } else {
+        MotifSearcher searcher = askForMotifs();
+        if (searcher != null) {
+            showHits("DNA Motifs", String.join(",", motifNames(searcher)), dnaSeq, motifNames(searcher), null,
+                    (sink, monitor) -> dnaSeq.findMotifs(searcher, sink, monitor));
+        }
+    }
+
+    // Asks for a comma separated motif list; returns null when there is nothing to search
+    private MotifSearcher askForMotifs() {
+        String input = JOptionPane.showInputDialog(this, "Enter motif(s) to search (comma separated, IUPAC codes allowed):");
+        if (input == null || input.trim().isEmpty()) {
             JOptionPane.showMessageDialog(this, "Motif cannot be empty!");
+            return null;
+        }
+        List<String> motifs = new ArrayList<>();
+        for (String motif : input.trim().split("[,\\s]+")) {
+            motifs.add(motif.toUpperCase());
+        }
+        try {
+            return new MotifSearcher(motifs);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return null;
         }
-    } else {
-        JOptionPane.showMessageDialog(this, "Invalid DNA sequence!");
     }
-}
+
+    private static String[] motifNames(MotifSearcher searcher) {
+        String[] names = new String[searcher.motifCount()];
+        for (int id = 0; id < names.length; id++) {
+            names[id] = searcher.motif(id);
+        }
+        return names;
+    }
+
+    // Collects the hits off the EDT, at most MAX_VIEWER_HITS of them, and opens them in a
+    // ResultsViewer; the viewer only reads the rows that are on screen. The hits go through the
+    // result cache like runAnalysis, keyed by title and parameters (the motif list). scoreName
+    // is null when the search has no scores, which hides the column.
+    private void showHits(String title, String parameters, Sequence seq, String[] labels, String scoreName,
+                          java.util.function.BiConsumer<HitSink, AnalysisMonitor> search) {
+        SequenceWrapper input = currentInput;
+        HitBuffer[] found = new HitBuffer[1];
+        AnalysisJob<String> job = new AnalysisJob<>(title, monitor -> {
+            if (!seq.validateSequence(TASK_MODE)) {
+                return "Invalid " + (seq instanceof DNASequence ? "DNA" : "RNA") + " sequence! "
+                        + seq.validation().describeProblem(TASK_MODE);
+            }
+            found[0] = input.analyze(title, parameters, () -> {
+                HitBuffer hits = new HitBuffer(16, MAX_VIEWER_HITS);
+                search.accept(hits, monitor);
+                hits.trimToSize();
+                return hits;
+            });
+            return null;
+        }, problem -> {
+            if (problem != null) {
+                JOptionPane.showMessageDialog(this, problem);
+            } else if (found[0].total() == 0) {
+                JOptionPane.showMessageDialog(this, "Nothing found!");
+            } else {
+                ResultsViewer.open(this, title + ": " + found[0].total() + " hits", found[0], labels, scoreName, seq.view());
+            }
+        }, ex -> JOptionPane.showMessageDialog(this, title + " failed: " + ex.getMessage()));
+        startJob(job);
+    }
+
+    // Streams every palindrome, or every hit of a motif list, into a CSV, BED or JSON file
+    // without holding the results in memory; the format follows the file extension
+    private void exportResults(Sequence seq) {
+        String[] choices = {"Palindromes", "Motifs"};
+        int choice = JOptionPane.showOptionDialog(this, "Which results should be exported?", "Export Results",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, choices, choices[0]);
+        if (choice < 0) {
+            return;
+        }
+        MotifSearcher searcher = choice == 1 ? askForMotifs() : null;
+        if (choice == 1 && searcher == null) {
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export to .csv, .bed or .json");
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path path = chooser.getSelectedFile().toPath();
+        int format;
+        try {
+            format = ResultExporter.formatOf(path);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return;
+        }
+        String record = loadedName != null ? loadedName : "input";
+        String[] names = searcher != null ? motifNames(searcher) : new String[]{"palindrome"};
+        AnalysisJob<Long> job = new AnalysisJob<>("Exporting to " + path.getFileName(), monitor -> {
+            try (ResultExporter exporter = new ResultExporter(path, format, record, names)) {
+                if (searcher != null && seq instanceof DNASequence) {
+                    ((DNASequence) seq).findMotifs(searcher, exporter, monitor);
+                } else if (searcher != null) {
+                    ((RNASequence) seq).findMotifs(searcher, exporter, monitor);
+                } else if (seq instanceof DNASequence) {
+                    ((DNASequence) seq).findPalindrome(exporter, monitor);
+                } else {
+                    ((RNASequence) seq).findPalindrome(exporter, monitor);
+                }
+                return exporter.rows();
+            }
+        }, rows -> JOptionPane.showMessageDialog(this, "Wrote " + rows + " rows to " + path.getFileName()),
+                ex -> JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage()));
+        startJob(job);
+    }
+
     private void countDNANucleotides(DNASequence dnaSeq) {
-    if (dnaSeq.validateSequence()) {
-        Map<Character, Integer> counts = dnaSeq.countNucleotides();
-        String message = "Nucleotide Counts:\n" +
-                "A: " + counts.get('A') + "\n" +
-                "T: " + counts.get('T') + "\n" +
-                "C: " + counts.get('C') + "\n" +
-                "G: " + counts.get('G');
-        JOptionPane.showMessageDialog(this, message);
-    } else {
-        JOptionPane.showMessageDialog(this, "Invalid DNA sequence!");
+        runAnalysis("Count Nucleotides", "", monitor -> {
+            SequenceStats stats = statistics(dnaSeq, monitor);
+            if (!stats.isValid(true)) {
+                return "Invalid DNA sequence! " + stats.describeProblem();
+            }
+            return "Nucleotide Counts:\n" +
+                    "A: " + stats.count(SequenceStats.A) + "\n" +
+                    "T: " + stats.count(SequenceStats.T) + "\n" +
+                    "C: " + stats.count(SequenceStats.C) + "\n" +
+                    "G: " + stats.count(SequenceStats.G) +
+                    (stats.count(SequenceStats.N) > 0 ? "\nN: " + stats.count(SequenceStats.N) : "");
+        });
     }
-}
 
+    // Six-frame ORF search with a user supplied minimum protein length
+    private void findDNAORFs(DNASequence dnaSeq) {
+        String input = JOptionPane.showInputDialog(this, "Minimum ORF length (amino acids):", "30");
+        if (input == null) {
+            return;
+        }
+        int minLength;
+        try {
+            minLength = Integer.parseInt(input.trim());
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Minimum length must be a number!");
+            return;
+        }
+        runAnalysis("Find ORFs", "min " + minLength, monitor -> {
+            if (!dnaSeq.validateSequence(TASK_MODE)) {
+                return "Invalid DNA sequence! " + dnaSeq.validation().describeProblem(TASK_MODE);
+            }
+            List<Translator.Orf> orfs = dnaSeq.findORFs(minLength, GeneticCode.STANDARD, monitor);
+            if (orfs.isEmpty()) {
+                return "No ORFs found!";
+            }
+            StringBuilder message = new StringBuilder("ORFs found: " + orfs.size() + "\n");
+            for (int i = 0; i < Math.min(orfs.size(), 20); i++) {
+                Translator.Orf orf = orfs.get(i);
+                message.append(orf.isForward() ? "+" : "-").append(orf.frame() % 3 + 1).append("  ")
+                        .append(orf.start() + 1).append("-").append(orf.end())
+                        .append("  (").append(orf.proteinLength()).append(" aa)\n");
+            }
+            if (orfs.size() > 20) {
+                message.append("...");
+            }
+            return message.toString();
+        });
+    }
 
-    private void transcribeToProtein(RNASequence rnaSeq) {
-        if (rnaSeq.validateSequence()) {
-            ProteinSequence proteinSeq = rnaSeq.transcribeToProtein();
-            JOptionPane.showMessageDialog(this, "Transcribed Protein: " + proteinSeq.getSequence());
-        } else {
-            JOptionPane.showMessageDialog(this, "Invalid RNA sequence!");
+    // Best local alignment of the sequence against a pasted reference
+    private void alignToReference(Sequence seq) {
+        String reference = JOptionPane.showInputDialog(this, "Enter the reference sequence to align against:");
+        if (reference == null || reference.trim().isEmpty()) {
+            return;
         }
+        String target = reference.replaceAll("\\s+", "").toUpperCase();
+        // the whole reference goes into the key, which ResultCache hashes with SHA-256 like the sequence
+        runAnalysis("Align to Reference", target, monitor -> {
+            if (!seq.validateSequence(TASK_MODE)) {
+                return "Invalid sequence! " + seq.validation().describeProblem(TASK_MODE);
+            }
+            SequenceAligner aligner = new SequenceAligner(ScoringMatrix.NUCLEOTIDE, SequenceAligner.LOCAL);
+            SequenceAligner.Alignment alignment = aligner.align(seq.view(), target, monitor);
+            return alignment.length() == 0 ? "No local alignment with a positive score!" : alignment.format(60);
+        });
+    }
+
+    private void transcribeToProtein(RNASequence rnaSeq) {
+        runAnalysis("Transcribe to Protein", "", monitor -> {
+            if (!rnaSeq.validateSequence(TASK_MODE)) {
+                return "Invalid RNA sequence! " + rnaSeq.validation().describeProblem(TASK_MODE);
+            }
+            return "Transcribed Protein: " + rnaSeq.transcribeToProtein(GeneticCode.STANDARD, monitor).getSequence();
+        });
     }
 
     private void findRNAPalindrome(RNASequence rnaSeq) {
-    if (rnaSeq.validateSequence()) {
-        List<String> palindromes = rnaSeq.findPalindrome();
-        String message = palindromes.isEmpty() ? "No palindromes found!" : "Palindromes: " + String.join(", ", palindromes);
-        JOptionPane.showMessageDialog(this, message);
-    } else {
-        JOptionPane.showMessageDialog(this, "Invalid RNA sequence!");
+        showHits("RNA Palindromes", "", rnaSeq, new String[]{"palindrome"}, "Arm", rnaSeq::findPalindrome);
     }
-}
+
     private void findRNAMotif(RNASequence rnaSeq) {
-    if (rnaSeq.validateSequence()) {
-        String motif = JOptionPane.showInputDialog(this, "Enter motif to search:");
-        if (motif != null && !motif.isEmpty()) {
-            List<Integer> positions = rnaSeq.findMotif(motif.toUpperCase());
-            String message = positions.isEmpty() ? "Motif not found!" : "Motif found at positions: " + positions;
-            JOptionPane.showMessageDialog(this, message);
-        } else {
-            JOptionPane.showMessageDialog(this, "Motif cannot be empty!");
+        MotifSearcher searcher = askForMotifs();
+        if (searcher != null) {
+            showHits("RNA Motifs", String.join(",", motifNames(searcher)), rnaSeq, motifNames(searcher), null,
+                    (sink, monitor) -> rnaSeq.findMotifs(searcher, sink, monitor));
         }
-    } else {
-        JOptionPane.showMessageDialog(this, "Invalid RNA sequence!");
     }
-}
+
     private void countRNANucleotides(RNASequence rnaSeq) {
-    if (rnaSeq.validateSequence()) {
-        Map<Character, Integer> counts = rnaSeq.countNucleotides();
-        String message = "Nucleotide Counts:\n" +
-                "A: " + counts.get('A') + "\n" +
-                "U: " + counts.get('U') + "\n" +
-                "C: " + counts.get('C') + "\n" +
-                "G: " + counts.get('G');
-        JOptionPane.showMessageDialog(this, message);
-    } else {
-        JOptionPane.showMessageDialog(this, "Invalid RNA sequence!");
+        runAnalysis("Count Nucleotides", "", monitor -> {
+            SequenceStats stats = statistics(rnaSeq, monitor);
+            if (!stats.isValid(true)) {
+                return "Invalid RNA sequence! " + stats.describeProblem();
+            }
+            return "Nucleotide Counts:\n" +
+                    "A: " + stats.count(SequenceStats.A) + "\n" +
+                    "U: " + stats.count(SequenceStats.T) + "\n" +
+                    "C: " + stats.count(SequenceStats.C) + "\n" +
+                    "G: " + stats.count(SequenceStats.G) +
+                    (stats.count(SequenceStats.N) > 0 ? "\nN: " + stats.count(SequenceStats.N) : "");
+        });
     }
-}
 
     private void setupAboutUsPage() {
         JPanel aboutPanel = new JPanel();
@@ -539,9 +765,9 @@ public class BioAppGUI extends JFrame {
         createdByLabel.setFont(new Font("SansSerif", Font.BOLD, 14));
         createdByLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        ImageIcon aboutUsImage = new ImageIcon("/Users/nandanareddy/Downloads/aboutus.jpeg");
-        Image scaledImage = aboutUsImage.getImage().getScaledInstance(300, 200, Image.SCALE_SMOOTH);
-        JLabel imageLabel = new JLabel(new ImageIcon(scaledImage));
+        JLabel imageLabel = new JLabel();
+        imageLabel.setPreferredSize(new Dimension(300, 200));
+        ImageCache.load(imageLabel, ABOUT_IMAGE, 300, 200);
         imageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
         aboutPanel.add(Box.createVerticalStrut(20));
@@ -570,13 +796,16 @@ public class BioAppGUI extends JFrame {
             "3. Transcribe to RNA: Converts the DNA sequence to an RNA sequence (replaces T with U).\n" +
             "4. Motif Finder: Finds all occurrences of a specific motif in the DNA sequence.\n" +
             "5. Palindrome Finder: Finds palindromes (sequences that read the same forward and backward).\n" +
-            "6. Nucleotide Counter: Counts occurrences of A, T, C, G nucleotides in the DNA sequence.\n\n" +
+            "6. Nucleotide Counter: Counts occurrences of A, T, C, G nucleotides in the DNA sequence.\n" +
+            "7. ORF Finder: Finds open reading frames (ATG to stop) in all six reading frames.\n" +
+            "8. Align to Reference: Finds the best local alignment (Smith-Waterman, affine gaps) against a reference.\n\n" +
             "RNA Functions:\n" +
             "1. GC Content Calculator: Calculates the GC content percentage in the RNA sequence.\n" +
             "2. Transcribe to Protein: Converts the RNA sequence into a protein sequence based on codons.\n" +
             "3. Motif Finder: Finds all occurrences of a specific motif in the RNA sequence.\n" +
             "4. Palindrome Finder: Finds palindromes in the RNA sequence.\n" +
-            "5. Nucleotide Counter: Counts occurrences of A, U, C, G nucleotides in the RNA sequence.\n\n" +
+            "5. Nucleotide Counter: Counts occurrences of A, U, C, G nucleotides in the RNA sequence.\n" +
+            "6. Align to Reference: Finds the best local alignment against a reference sequence.\n\n" +
             "Explore these tools to analyze your genetic sequences and gain insights into DNA and RNA!"
         );
         utilitiesText.setFont(new Font("Georgia", Font.PLAIN, 16));
@@ -606,14 +835,21 @@ public class BioAppGUI extends JFrame {
     }
 
 
+    // Builds the page the first time it is shown
     private void showPage(String page) {
+        Runnable builder = pageBuilders.remove(page);
+        if (builder != null) {
+            builder.run();
+        }
         CardLayout cl = (CardLayout) (contentPanel.getLayout());
         cl.show(contentPanel, page);
     }
 
     public static void main(String[] args) {
+        long start = System.nanoTime();
         SwingUtilities.invokeLater(() -> {
             BioAppGUI app = new BioAppGUI();
+            StartupTimer.reportWhenInteractive(app, "BioAppGUI", start);
             app.setVisible(true);
         });
     }
@@ -0,0 +1,178 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Connection Pool - at most maxSize JDBC connections, opened on demand and reused. Each pooled
+// connection keeps its prepared statements, so a query is only prepared once per connection.
+final class ConnectionPool implements AutoCloseable {
+    private final String url;
+    private final Properties properties;
+    private final int timeoutSeconds;
+    private final Semaphore permits;
+    private final Deque<Pooled> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    ConnectionPool(String url, String user, String password, int maxSize, int timeoutSeconds) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.properties = connectionProperties(user, password, timeoutSeconds);
+        this.timeoutSeconds = timeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    // Waits up to the timeout for a free connection; the lease must be closed to return it
+    Lease borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
+                throw new SQLTimeoutException("No database connection free after " + timeoutSeconds + "s");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", ex);
+        }
+        try {
+            return new Lease(take());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    int timeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    // The login timeout goes to the driver with the credentials instead of through the JVM-wide
+    // DriverManager.setLoginTimeout: connectTimeout in milliseconds for MySQL and MariaDB,
+    // loginTimeout in seconds for PostgreSQL and SQL Server. Drivers ignore the ones they lack.
+    private static Properties connectionProperties(String user, String password, int timeoutSeconds) {
+        Properties properties = new Properties();
+        if (user != null) {
+            properties.setProperty("user", user);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        properties.setProperty("connectTimeout", String.valueOf(TimeUnit.SECONDS.toMillis(timeoutSeconds)));
+        properties.setProperty("loginTimeout", String.valueOf(timeoutSeconds));
+        return properties;
+    }
+
+    // Reuses an idle connection that is still alive, otherwise opens a new one
+    private Pooled take() throws SQLException {
+        while (true) {
+            Pooled pooled;
+            synchronized (this) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) {
+                return new Pooled(DriverManager.getConnection(url, properties));
+            }
+            if (pooled.connection.isValid(timeoutSeconds)) {
+                return pooled;
+            }
+            pooled.close();
+        }
+    }
+
+    private void release(Pooled pooled, boolean broken) {
+        boolean keep;
+        synchronized (this) {
+            keep = !broken && !closed;
+            if (keep) {
+                idle.addFirst(pooled);
+            }
+        }
+        if (!keep) {
+            pooled.close();
+        }
+        permits.release();
+    }
+
+    @Override
+    public void close() {
+        Deque<Pooled> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            idle.clear();
+        }
+        for (Pooled pooled : toClose) {
+            pooled.close();
+        }
+    }
+
+    private static final class Pooled {
+        final Connection connection;
+        final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        Pooled(Connection connection) {
+            this.connection = connection;
+        }
+
+        void close() {
+            try {
+                connection.close();  // also closes its statements
+            } catch (SQLException ignored) {
+                // the connection is being discarded either way
+            }
+        }
+    }
+
+    // One borrowed connection. Statements stay open and cached when the lease is closed.
+    final class Lease implements AutoCloseable {
+        private final Pooled pooled;
+        private boolean broken;
+        private boolean released;
+
+        private Lease(Pooled pooled) {
+            this.pooled = pooled;
+        }
+
+        // Cached statement for this connection with the pool's query timeout applied
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = pooled.statements.get(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = pooled.connection.prepareStatement(sql);
+                statement.setQueryTimeout(timeoutSeconds);
+                pooled.statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+            }
+            return statement;
+        }
+
+        // Connection level failures (SQLState class 08, timeouts, unknown state) discard the
+        // connection when the lease closes; constraint violations and the like keep it
+        void failed(SQLException ex) {
+            String state = ex.getSQLState();
+            if (ex instanceof SQLTimeoutException || ex instanceof SQLRecoverableException
+                    || state == null || state.startsWith("08")) {
+                broken = true;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(pooled, broken);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// DNA Sequence Class - Demonstrates Inheritance and Polymorphism
+class DNASequence extends Sequence {
+    private static final Metrics.Operation COMPLEMENT = Metrics.operation("DNASequence.findComplement");
+    private static final Metrics.Operation REVERSE_COMPLEMENT = Metrics.operation("DNASequence.findReverseComplement");
+    private static final Metrics.Operation GC_CONTENT = Metrics.operation("DNASequence.calculateGCContent");
+    private static final Metrics.Operation STATISTICS = Metrics.operation("DNASequence.statistics");
+    private static final Metrics.Operation TRANSCRIBE = Metrics.operation("DNASequence.transcribeToRNA");
+    private static final Metrics.Operation SIX_FRAMES = Metrics.operation("DNASequence.translateSixFrames");
+    private static final Metrics.Operation ORFS = Metrics.operation("DNASequence.findORFs");
+    private static final Metrics.Operation PALINDROME = Metrics.operation("DNASequence.findPalindrome");
+    private static final Metrics.Operation PALINDROMES = Metrics.operation("DNASequence.findPalindromes");
+    private static final Metrics.Operation MOTIF = Metrics.operation("DNASequence.findMotif");
+    private static final Metrics.Operation MOTIFS = Metrics.operation("DNASequence.findMotifs");
+    private static final Metrics.Operation COUNT = Metrics.operation("DNASequence.countNucleotides");
+    private static final Metrics.Operation KMERS = Metrics.operation("DNASequence.countKmers");
+
+    public DNASequence(String sequence) {
+        super(sequence);
+    }
+
+    public DNASequence(PackedSequence packed) {
+        super(packed.asDNA());
+    }
+
+    public DNASequence(SequenceView view) {
+        super(view);
+    }
+
+    // Bases [from, to) sharing this sequence's storage
+    public DNASequence slice(int from, int to) {
+        return new DNASequence(view().slice(from, to));
+    }
+
+    // The reverse complement strand as a view, no copy
+    public DNASequence reverseStrand() {
+        return new DNASequence(view().reverseComplement());
+    }
+
+    // Counts of every k-mer, canonical ones merge each k-mer with its reverse complement
+    public KmerCounter.Counts countKmers(int k, boolean canonical) {
+        return KMERS.time(getLength(), () -> new KmerCounter(k, canonical).count(this));
+    }
+
+    @Override
+    protected int alphabet() {
+        return SequenceValidator.DNA;
+    }
+
+    public String findComplement() {
+        return COMPLEMENT.time(getLength(), this::complement);
+    }
+
+    private String complement() {
+        if (packed != null) {
+            return packed.complement().toString();
+        }
+        byte[] bytes = kernelBytes();
+        if (bytes != null) {
+            BaseKernels.INSTANCE.complement(bytes, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+        return getSequence().replace('A', 't').replace('T', 'a').replace('C', 'g').replace('G', 'c').toUpperCase();
+    }
+
+    // Complement read backwards, i.e. the other strand 5' to 3'
+    public String findReverseComplement() {
+        return REVERSE_COMPLEMENT.time(getLength(), () -> {
+            if (packed != null) {
+                return packed.reverseComplement().toString();
+            }
+            byte[] bytes = kernelBytes();
+            if (bytes != null) {
+                byte[] reversed = new byte[bytes.length];
+                BaseKernels.INSTANCE.reverseComplement(bytes, reversed);
+                return new String(reversed, StandardCharsets.ISO_8859_1);
+            }
+            return new StringBuilder(complement()).reverse().toString();
+        });
+    }
+
+    public double calculateGCContent() {
+        return GC_CONTENT.time(getLength(), () -> {
+            if (packed != null) {
+                return (packed.gcCount() / (double) packed.length()) * 100;
+            }
+            return computeStatistics(false, AnalysisMonitor.NONE).gcContent();
+        });
+    }
+
+    // Validation, counts, GC content and skews in one pass, see SequenceStats
+    public SequenceStats statistics() {
+        return statistics(AnalysisMonitor.NONE);
+    }
+
+    public SequenceStats statistics(AnalysisMonitor monitor) {
+        return STATISTICS.time(getLength(), () -> computeStatistics(false, monitor));
+    }
+
+    public RNASequence transcribeToRNA() {
+        return TRANSCRIBE.time(getLength(), () -> {
+            if (packed != null) {
+                return new RNASequence(packed.asRNA());  // shares the packed words, no copy
+            }
+            byte[] bytes = kernelBytes();
+            if (bytes != null) {
+                BaseKernels.INSTANCE.replace(bytes, bytes, (byte) 'T', (byte) 'U');
+                return new RNASequence(new String(bytes, StandardCharsets.ISO_8859_1));
+            }
+            return new RNASequence(getSequence().replace('T', 'U'));
+        });
+    }
+
+    // All six reading frames (three per strand) translated in one pass, stops kept as '*'
+    public ProteinSequence[] translateSixFrames(GeneticCode code) {
+        return SIX_FRAMES.time(getLength(), () -> {
+            byte[][] frames = new Translator(code).translateSixFrames(toCodes());
+            ProteinSequence[] proteins = new ProteinSequence[frames.length];
+            for (int f = 0; f < frames.length; f++) {
+                proteins[f] = Translator.toProtein(frames[f]);
+            }
+            return proteins;
+        });
+    }
+
+    public List<Translator.Orf> findORFs(int minLength, GeneticCode code) {
+        return findORFs(minLength, code, AnalysisMonitor.NONE);
+    }
+
+    public List<Translator.Orf> findORFs(int minLength, GeneticCode code, AnalysisMonitor monitor) {
+        return ORFS.time(getLength(), () -> new Translator(code).findOrfs(toCodes(), minLength, monitor));
+    }
+
+    public List<String> findPalindrome() {
+        return findPalindrome(AnalysisMonitor.NONE);
+    }
+
+    public List<String> findPalindrome(AnalysisMonitor monitor) {
+        return PALINDROME.time(getLength(), () -> palindromeSubstrings(monitor));
+    }
+
+    // Streams the palindromes of findPalindrome as (start, end, 0, arm), however many there are
+    public void findPalindrome(HitSink sink, AnalysisMonitor monitor) {
+        PALINDROME.time(getLength(), () -> {
+            palindromeHits(sink, monitor);
+            return null;
+        });
+    }
+
+    // Reverse-complement palindromes as coordinates, see PalindromeFinder for the options
+    public PalindromeFinder.Hits findPalindromes(int minArm, int maxArm, int maxMismatches, int maxGap) {
+        return PALINDROMES.time(getLength(), () -> new PalindromeFinder(minArm, maxArm, maxMismatches, maxGap).find(toCodes()));
+    }
+public List<Integer> findMotif(String motif) {
+    return asList(MOTIF.time(getLength(), () -> motifPositions(motif))); // 1-based indexing
+}
+    // Searches a whole motif set (IUPAC codes allowed) in one pass, see MotifSearcher
+    public MotifSearcher.Hits findMotifs(List<String> motifs) {
+        return findMotifs(new MotifSearcher(motifs));
+    }
+
+    public MotifSearcher.Hits findMotifs(MotifSearcher searcher) {
+        return findMotifs(searcher, AnalysisMonitor.NONE);
+    }
+
+    public MotifSearcher.Hits findMotifs(MotifSearcher searcher, AnalysisMonitor monitor) {
+        return MOTIFS.time(getLength(), () -> searcher.search(toCodes(), monitor));
+    }
+
+    // Streams the hits as (start, end, motif id, 0) instead of collecting them
+    public void findMotifs(MotifSearcher searcher, HitSink sink, AnalysisMonitor monitor) {
+        MOTIFS.time(getLength(), () -> {
+            motifHits(searcher, sink, monitor);
+            return null;
+        });
+    }
+public Map<Character, Integer> countNucleotides() {
+    return COUNT.time(getLength(), () -> {
+        if (packed != null) {
+            return packedCounts(packed, 'T');
+        }
+        SequenceStats stats = computeStatistics(false, AnalysisMonitor.NONE);
+        if (stats.invalidCount() == 0) {
+            return statsCounts(stats, 'T');
+        }
+        Map<Character, Integer> counts = new HashMap<>();  // keep per-character counts for unexpected input
+        counts.put('A', 0);
+        counts.put('T', 0);
+        counts.put('C', 0);
+        counts.put('G', 0);
+        for (char c : getSequence().toCharArray()) {
+            counts.put(c, counts.getOrDefault(c, 0) + 1);
+        }
+        return counts;
+    });
+}
+
+}
@@ -0,0 +1,226 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// FM-Index - suffix array + BWT over the nucleotide alphabet, built once per reference and reused
+// for count/locate queries in O(|motif|) plus the number of hits
+final class FMIndex {
+    private static final int MAGIC = 0x47414649;  // "GAFI"
+    private static final int VERSION = 1;
+    private static final int SIGMA = 6;           // $ A C G T N
+    private static final int BLOCK = 64;          // bases between Occ checkpoints
+    static final int DEFAULT_SAMPLE_RATE = 32;
+
+    private final int length;       // text length without the sentinel
+    private final int sampleRate;
+    private final byte[] bwt;       // symbols 0..5, 0 is the sentinel
+    private final int[] counts;     // C array: number of symbols smaller than c
+    private final int[] occ;        // occurrences of each symbol before every BLOCK boundary
+    private final long[] sampled;   // bit per BWT row whose suffix position is a multiple of sampleRate
+    private final int[] sampledRank;
+    private final int[] samples;    // suffix positions of the sampled rows, in row order
+
+    private FMIndex(int length, int sampleRate, byte[] bwt, int[] counts, int[] occ,
+                    long[] sampled, int[] sampledRank, int[] samples) {
+        this.length = length;
+        this.sampleRate = sampleRate;
+        this.bwt = bwt;
+        this.counts = counts;
+        this.occ = occ;
+        this.sampled = sampled;
+        this.sampledRank = sampledRank;
+        this.samples = samples;
+    }
+
+    static FMIndex build(Sequence sequence) {
+        return build(sequence.toCodes(), DEFAULT_SAMPLE_RATE);
+    }
+
+    // codes as produced by Sequence.toCodes; only every sampleRate-th suffix position is kept
+    static FMIndex build(byte[] codes, int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1");
+        }
+        int n = codes.length;
+        int[] text = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            text[i] = symbolOf(codes[i]);
+        }
+        text[n] = 0;
+        int[] sa = SuffixArrays.sais(text, SIGMA - 1);
+
+        byte[] bwt = new byte[n + 1];
+        long[] sampled = new long[(n + 1 + 63) >>> 6];
+        int sampleCount = 0;
+        for (int row = 0; row <= n; row++) {
+            int pos = sa[row];
+            bwt[row] = (byte) (pos == 0 ? 0 : text[pos - 1]);
+            if (pos % sampleRate == 0) {
+                sampled[row >>> 6] |= 1L << row;
+                sampleCount++;
+            }
+        }
+        int[] samples = new int[sampleCount];
+        for (int row = 0, k = 0; row <= n; row++) {
+            if (sa[row] % sampleRate == 0) {
+                samples[k++] = sa[row];
+            }
+        }
+        return new FMIndex(n, sampleRate, bwt, cumulativeCounts(bwt), checkpoints(bwt),
+                sampled, ranks(sampled), samples);
+    }
+
+    int length() {
+        return length;
+    }
+
+    int count(CharSequence motif) {
+        int[] range = range(motif);
+        return range[1] - range[0];
+    }
+
+    // 0-based start positions of every occurrence, ascending
+    int[] locate(CharSequence motif) {
+        int[] range = range(motif);
+        int[] positions = new int[range[1] - range[0]];
+        for (int row = range[0]; row < range[1]; row++) {
+            positions[row - range[0]] = suffixAt(row);
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    // Backward search; returns the half-open BWT row range [sp, ep) of suffixes starting with motif
+    private int[] range(CharSequence motif) {
+        int sp = 0;
+        int ep = bwt.length;
+        for (int i = motif.length() - 1; i >= 0 && sp < ep; i--) {
+            int code = PackedSequence.codeOf(motif.charAt(i));
+            if (code > PackedSequence.T) {
+                return new int[]{0, 0};  // N and IUPAC codes are not indexed
+            }
+            int c = code + 1;
+            sp = counts[c] + occ(c, sp);
+            ep = counts[c] + occ(c, ep);
+        }
+        return sp < ep ? new int[]{sp, ep} : new int[]{0, 0};
+    }
+
+    // Walks LF until a sampled row; at most sampleRate steps per hit
+    private int suffixAt(int row) {
+        int steps = 0;
+        while ((sampled[row >>> 6] & (1L << row)) == 0) {
+            int c = bwt[row];
+            row = counts[c] + occ(c, row);
+            steps++;
+        }
+        return samples[rank(row)] + steps;
+    }
+
+    private int occ(int c, int row) {
+        int block = row / BLOCK;
+        int count = occ[block * SIGMA + c];
+        for (int i = block * BLOCK; i < row; i++) {
+            if (bwt[i] == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Sampled rows before this one
+    private int rank(int row) {
+        int word = row >>> 6;
+        return sampledRank[word] + Long.bitCount(sampled[word] & ((1L << row) - 1));
+    }
+
+    // Approximate heap footprint of the index
+    long sizeInBytes() {
+        return bwt.length + 4L * (occ.length + sampledRank.length + samples.length) + 8L * sampled.length;
+    }
+
+    void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(length);
+            out.writeInt(sampleRate);
+            out.write(bwt);
+            out.writeInt(samples.length);
+            for (int sample : samples) {
+                out.writeInt(sample);
+            }
+            for (long word : sampled) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    // The checkpoint and rank tables are cheap to recompute, so only the BWT and samples are stored
+    static FMIndex load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a GeneAlchemy FM-index file: " + path);
+            }
+            int length = in.readInt();
+            int sampleRate = in.readInt();
+            byte[] bwt = new byte[length + 1];
+            in.readFully(bwt);
+            int[] samples = new int[in.readInt()];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = in.readInt();
+            }
+            long[] sampled = new long[(length + 1 + 63) >>> 6];
+            for (int i = 0; i < sampled.length; i++) {
+                sampled[i] = in.readLong();
+            }
+            return new FMIndex(length, sampleRate, bwt, cumulativeCounts(bwt), checkpoints(bwt),
+                    sampled, ranks(sampled), samples);
+        }
+    }
+
+    // $=0, A=1, C=2, G=3, T=4, and N (or anything invalid) = 5 so it never matches a query base
+    private static int symbolOf(int code) {
+        return code <= PackedSequence.T ? code + 1 : SIGMA - 1;
+    }
+
+    private static int[] cumulativeCounts(byte[] bwt) {
+        int[] counts = new int[SIGMA + 1];
+        for (byte c : bwt) {
+            counts[c + 1]++;
+        }
+        for (int c = 1; c <= SIGMA; c++) {
+            counts[c] += counts[c - 1];
+        }
+        return counts;
+    }
+
+    private static int[] checkpoints(byte[] bwt) {
+        int blocks = bwt.length / BLOCK + 1;
+        int[] occ = new int[blocks * SIGMA];
+        int[] running = new int[SIGMA];
+        for (int i = 0; i < bwt.length; i++) {
+            if (i % BLOCK == 0) {
+                System.arraycopy(running, 0, occ, (i / BLOCK) * SIGMA, SIGMA);
+            }
+            running[bwt[i]]++;
+        }
+        if (bwt.length % BLOCK == 0) {
+            System.arraycopy(running, 0, occ, (bwt.length / BLOCK) * SIGMA, SIGMA);
+        }
+        return occ;
+    }
+
+    private static int[] ranks(long[] bits) {
+        int[] ranks = new int[bits.length];
+        for (int i = 1; i < bits.length; i++) {
+            ranks[i] = ranks[i - 1] + Long.bitCount(bits[i - 1]);
+        }
+        return ranks;
+    }
+}
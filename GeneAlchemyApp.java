@@ -1,7 +1,9 @@
 import javax.swing.*;//GUI components like buttons, text fields etc 
 import java.awt.*;//layout management and event handling 
 import java.awt.event.*;//to handle user interactions such as button clicks 
-import java.sql.*;//to connect and interact with the database 
+import java.sql.SQLException;//database errors reported by the UserStore
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class GeneAlchemyApp {//this is the main class for the application 
 
@@ -13,13 +15,28 @@ public class GeneAlchemyApp {//this is the main class for the application
     private JTextField signUpUserText;
     private JPasswordField signUpPasswordText;
     private JPasswordField signUpConfirmPasswordText;
-    private Connection conn;//used to establish a connection with the database 
+    private UserStore userStore;//pooled database access, queries run off the Event Dispatch Thread 
 
     public static void main(String[] args) {//entry point of the applicaion
-        new GeneAlchemyApp();  //creates an instance of the GeneAlchemy class to start the program 
+        long start = System.nanoTime();
+        SwingUtilities.invokeLater(() -> new GeneAlchemyApp(start));  //creates an instance of the GeneAlchemy class on the Event Dispatch Thread to start the program 
     }
 
-    public GeneAlchemyApp() {//constructor initialises the GUI components and establish the database connection 
+    public GeneAlchemyApp() {
+        this(System.nanoTime());
+    }
+
+    GeneAlchemyApp(long startNanos) {//constructor initialises the GUI components and warms up the database connection in the background 
+        //Connections are opened by the pool, see UserStore for the configuration; the first one is opened right away off the EDT
+        userStore = UserStore.fromSystemProperties();
+        Runtime.getRuntime().addShutdownHook(new Thread(userStore::close));
+        userStore.warmUp().whenComplete((ignored, error) -> {
+            if (error != null) {
+                System.out.println("Error: " + describe(error));
+            } else {
+                System.out.printf("Database connection ready after %d ms%n", (System.nanoTime() - startNanos) / 1_000_000);
+            }
+        });
         
         //Sets up the main application window with the title, close operation and fixed size
         frame = new JFrame("GeneAlchemy - Login");
@@ -73,18 +90,22 @@ public class GeneAlchemyApp {//this is the main class for the application
         String username = userText.getText();
         String password = new String(passwordText.getPassword());
 
-        //Validate login with the database using validateLogin()
-        if (validateLogin(username, password)) {
-            //if the credentials are valid then it opens the BioAppGUI
-            SwingUtilities.invokeLater(() -> {
+        //Validate login with the database using validateLogin(); the buttons stay disabled until the answer arrives
+        loginButton.setEnabled(false);
+        validateLogin(username, password).whenComplete((valid, error) -> SwingUtilities.invokeLater(() -> {
+            loginButton.setEnabled(true);
+            if (error != null) {
+                JOptionPane.showMessageDialog(null, "Database Error: " + describe(error));
+            } else if (valid) {
+                //if the credentials are valid then it opens the BioAppGUI
                 BioAppGUI bioAppGUI = new BioAppGUI();
                 bioAppGUI.setVisible(true);
-            });
-            //Closes the login window 
-            ((JFrame) SwingUtilities.getWindowAncestor(loginButton)).dispose();
-        } else {//otherwise, it shows an error message
-            JOptionPane.showMessageDialog(null, "Invalid username or password.");
-        }
+                //Closes the login window 
+                frame.dispose();
+            } else {//otherwise, it shows an error message
+                JOptionPane.showMessageDialog(null, "Invalid username or password.");
+            }
+        }));
     }
 });
 
@@ -128,17 +149,16 @@ public class GeneAlchemyApp {//this is the main class for the application
                 String confirmPassword = new String(signUpConfirmPasswordText.getPassword());
 
                 if (password.equals(confirmPassword)) {//if the password matches then it inserts the user into the database
-                    try {
-                        String query = "INSERT INTO users (username, password) VALUES (?, ?)";
-                        PreparedStatement stmt = conn.prepareStatement(query);
-                        stmt.setString(1, username);
-                        stmt.setString(2, password);
-                        stmt.executeUpdate();
-                        JOptionPane.showMessageDialog(null, "Sign Up Successful!");//then displays the success message and redirects to the login page
-                        cardLayout.show(cardPanel, "Login"); 
-                    } catch (SQLException ex) {
-                        JOptionPane.showMessageDialog(null, "Database Error: " + ex.getMessage());//otherwise shows an error message
-                    }
+                    signUpSubmitButton.setEnabled(false);
+                    userStore.signUp(username, password).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+                        signUpSubmitButton.setEnabled(true);
+                        if (error == null) {
+                            JOptionPane.showMessageDialog(null, "Sign Up Successful!");//then displays the success message and redirects to the login page
+                            cardLayout.show(cardPanel, "Login"); 
+                        } else {
+                            JOptionPane.showMessageDialog(null, "Database Error: " + describe(error));//otherwise shows an error message
+                        }
+                    }));
                 } else {
                     JOptionPane.showMessageDialog(null, "Passwords do not match!");
                 }
@@ -152,32 +172,19 @@ public class GeneAlchemyApp {//this is the main class for the application
         //Show login page by default
         cardLayout.show(cardPanel, "Login");
 
+        StartupTimer.reportWhenInteractive(frame, "Login window", startNanos);
         frame.setVisible(true);  // Make the frame visible
 
-        //Establish MySQL connection
-        try {
-            conn = DriverManager.getConnection("jdbc:mysql://localhost:3306/GeneAlchemyDB", "root", "Nandana17!"); 
-        } catch (SQLException e) {
-            System.out.println("Error: " + e.getMessage());
-        }
     }
 
-    //Method to validate login credentials with the database
-    private boolean validateLogin(String username, String password) {
-        String query = "SELECT * FROM users WHERE username = ? AND password = ?";//checks if the username and password exist in the database. Returns true if valid, otherwise blue
-        try {
-            PreparedStatement stmt = conn.prepareStatement(query);
-            stmt.setString(1, username);
-            stmt.setString(2, password);
-            ResultSet rs = stmt.executeQuery();
-
-            //If a record is found, login is successful
-            if (rs.next()) {
-                return true;
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(null, "Database Error: " + e.getMessage());
-        }
-        return false;  // Return false if no match is found
+    //Method to validate login credentials with the database, completes with true when a matching user exists
+    private CompletableFuture<Boolean> validateLogin(String username, String password) {
+        return userStore.validateLogin(username, password);
+    }
+
+    //Unwraps the SQLException behind a failed database call
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof SQLException ? cause.getMessage() : cause.toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,304 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Headless Batch Runner - runs the sequence analyses over FASTA/FASTQ files (or directories of
+// them) on a bounded worker pool and streams one row per result as TSV or JSON lines. It only
+// touches the analysis classes, so AWT is never loaded and no display is needed.
+//
+//   java GeneAlchemyCLI [--ops counts,gc,motif,palindrome,translate,orfs] [--motifs GAATTC,TATAAA]
+//        [--min-arm 4] [--max-arm 100] [--min-orf 30] [--table 1] [--rna] [--threads N]
+//        [--format tsv|json] [--out results.tsv] file-or-directory...
+//
+// Rows are (file, record, operation, name, start, end, value) with 0-based half-open
+// coordinates; rows from different files interleave, rows of one record keep their order.
+// --threads also splits counts, gc, motif and palindrome on a record of two chunks or more
+// (see ParallelAnalysis), so a single large record uses every thread too.
+public class GeneAlchemyCLI {
+    private static final List<String> OPERATIONS = Arrays.asList("counts", "gc", "motif", "palindrome", "translate", "orfs");
+    private static final String[] EXTENSIONS = {".fa", ".fasta", ".fna", ".ffn", ".fq", ".fastq", ".gpk"};
+    private static final int FLUSH_SIZE = 64 << 10;  // chars buffered per worker before writing
+
+    private final List<String> operations;
+    private final boolean rna;
+    private final boolean json;
+    private final MotifSearcher motifs;
+    private final PalindromeFinder palindromes;
+    private final Translator translator;
+    private final int minOrf;
+    private final ParallelAnalysis parallel;
+    private final Writer out;
+
+    private GeneAlchemyCLI(Map<String, String> options, int threads, Writer out) {
+        operations = Arrays.asList(options.getOrDefault("ops", "counts,gc").split(","));
+        for (String operation : operations) {
+            if (!OPERATIONS.contains(operation)) {
+                throw new IllegalArgumentException("Unknown operation '" + operation + "', expected one of " + OPERATIONS);
+            }
+        }
+        rna = options.containsKey("rna");
+        String format = options.getOrDefault("format", "tsv");
+        if (!format.equals("tsv") && !format.equals("json")) {
+            throw new IllegalArgumentException("Format must be tsv or json");
+        }
+        json = format.equals("json");
+        if (operations.contains("motif") && !options.containsKey("motifs")) {
+            throw new IllegalArgumentException("The motif operation needs --motifs");
+        }
+        motifs = options.containsKey("motifs")
+                ? new MotifSearcher(Arrays.asList(options.get("motifs").toUpperCase(Locale.ROOT).split(",")))
+                : null;
+        palindromes = new PalindromeFinder(Integer.parseInt(options.getOrDefault("min-arm", "4")),
+                Integer.parseInt(options.getOrDefault("max-arm", "100")), 0, 0);
+        translator = new Translator(GeneticCode.forTable(Integer.parseInt(options.getOrDefault("table", "1"))));
+        minOrf = Integer.parseInt(options.getOrDefault("min-orf", "30"));
+        parallel = new ParallelAnalysis(new ForkJoinPool(threads), ParallelAnalysis.DEFAULT_CHUNK_SIZE);
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        Map<String, String> options = new LinkedHashMap<>();
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rna")) {
+                options.put("rna", "true");
+            } else if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i].substring(2), args[++i]);
+            } else if (args[i].startsWith("--")) {
+                usage("Missing value for " + args[i]);
+            } else {
+                inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            usage("No input files given");
+        }
+
+        List<Path> files = expand(inputs);
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Writer out = new BufferedWriter(options.containsKey("out")
+                ? Files.newBufferedWriter(Paths.get(options.get("out")), StandardCharsets.UTF_8)
+                : new OutputStreamWriter(System.out, StandardCharsets.UTF_8), FLUSH_SIZE);
+        GeneAlchemyCLI runner;
+        try {
+            runner = new GeneAlchemyCLI(options, threads, out);
+        } catch (IllegalArgumentException ex) {
+            usage(ex.getMessage());
+            return;
+        }
+        int failures = runner.run(files, threads);
+        out.close();
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // Processes the files with at most threads workers and a queue twice that size; when the
+    // queue is full the submitting thread runs the file itself, which keeps memory bounded
+    private int run(List<Path> files, int threads) throws IOException, InterruptedException {
+        if (!json) {
+            write("file\trecord\toperation\tname\tstart\tend\tvalue\n");
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2 * threads), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<?>> results = new ArrayList<>();
+        for (Path file : files) {
+            results.add(pool.submit(() -> {
+                analyzeFile(file);
+                return null;
+            }));
+        }
+        pool.shutdown();
+        int failures = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (ExecutionException ex) {
+                failures++;
+                Throwable cause = ex.getCause() instanceof UncheckedIOException ? ex.getCause().getCause() : ex.getCause();
+                System.err.println(files.get(i) + ": " + cause.getMessage());
+            }
+        }
+        out.flush();
+        return failures;
+    }
+
+    private void analyzeFile(Path file) throws IOException {
+        StringBuilder rows = new StringBuilder();
+        String fileName = file.toString();
+        SequenceReader.forEachSequence(file, rna, (record, sequence) -> {
+            for (String operation : operations) {
+                analyze(operation, fileName, record, sequence, rows);
+            }
+        });
+        flush(rows);
+    }
+
+    private void analyze(String operation, String file, String record, Sequence sequence, StringBuilder rows) {
+        switch (operation) {
+            case "counts": {
+                SequenceStats stats = statistics(sequence);
+                String[] names = {"A", "C", "G", rna ? "U" : "T"};
+                for (int base = SequenceStats.A; base <= SequenceStats.T; base++) {
+                    row(rows, file, record, operation, names[base], -1, -1, String.valueOf(stats.count(base)));
+                }
+                row(rows, file, record, operation, "N", -1, -1, String.valueOf(sequence.getPacked().ambiguousCount()));
+                break;
+            }
+            case "gc":
+                row(rows, file, record, operation, "gc_percent", -1, -1,
+                        String.format(Locale.ROOT, "%.4f", statistics(sequence).gcContent()));
+                break;
+            case "motif": {
+                MotifSearcher.Hits hits = parallel.splits(sequence)
+                        ? parallel.findMotifs(sequence, motifs) : motifs.search(sequence.toCodes());
+                for (int i = 0; i < hits.size(); i++) {
+                    int id = hits.motif(i);
+                    row(rows, file, record, operation, motifs.motif(id), hits.start(i),
+                            hits.start(i) + motifs.motifLength(id), ".");
+                }
+                break;
+            }
+            case "palindrome": {
+                PalindromeFinder.Hits hits = parallel.splits(sequence)
+                        ? parallel.findPalindromes(sequence, palindromes) : palindromes.find(sequence.toCodes());
+                for (int i = 0; i < hits.size(); i++) {
+                    row(rows, file, record, operation, "arm", hits.start(i), hits.start(i) + hits.length(i),
+                            String.valueOf(hits.arm(i)));
+                }
+                break;
+            }
+            case "translate": {
+                byte[][] frames = translator.translateSixFrames(sequence.toCodes());
+                for (int frame = 0; frame < 6; frame++) {
+                    row(rows, file, record, operation, (frame < 3 ? "+" : "-") + (frame % 3 + 1), -1, -1,
+                            new String(frames[frame], StandardCharsets.US_ASCII));
+                }
+                break;
+            }
+            case "orfs":
+                for (Translator.Orf orf : translator.findOrfs(sequence.toCodes(), minOrf)) {
+                    row(rows, file, record, operation, (orf.isForward() ? "+" : "-") + (orf.frame() % 3 + 1),
+                            orf.start(), orf.end(), String.valueOf(orf.proteinLength()));
+                }
+                break;
+            default:
+                throw new IllegalStateException(operation);
+        }
+    }
+
+    private SequenceStats statistics(Sequence sequence) {
+        return parallel.splits(sequence) ? parallel.statistics(sequence) : SequenceStats.of(sequence.getPacked());
+    }
+
+    // Appends one row; start/end of -1 mean the result has no coordinates
+    private void row(StringBuilder rows, String file, String record, String operation, String name,
+                     long start, long end, String value) {
+        if (json) {
+            rows.append("{\"file\":").append(quote(file)).append(",\"record\":").append(quote(record))
+                    .append(",\"operation\":\"").append(operation).append("\",\"name\":").append(quote(name));
+            if (start >= 0) {
+                rows.append(",\"start\":").append(start).append(",\"end\":").append(end);
+            }
+            rows.append(",\"value\":").append(quote(value)).append("}\n");
+        } else {
+            rows.append(file).append('\t').append(record).append('\t').append(operation).append('\t').append(name)
+                    .append('\t').append(start >= 0 ? String.valueOf(start) : ".")
+                    .append('\t').append(end >= 0 ? String.valueOf(end) : ".")
+                    .append('\t').append(value).append('\n');
+        }
+        if (rows.length() >= FLUSH_SIZE) {
+            flush(rows);
+        }
+    }
+
+    private void flush(StringBuilder rows) {
+        if (rows.length() > 0) {
+            write(rows);
+            rows.setLength(0);
+        }
+    }
+
+    // Whole rows are written under the writer's lock so workers never split a line
+    private void write(CharSequence text) {
+        synchronized (out) {
+            try {
+                out.append(text);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    // Directories contribute every FASTA/FASTQ file below them, optionally gzipped, in name order
+    private static List<Path> expand(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (!Files.isDirectory(input)) {
+                files.add(input);
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(input)) {
+                files.addAll(walk.filter(Files::isRegularFile).filter(GeneAlchemyCLI::isSequenceFile)
+                        .sorted().collect(Collectors.toList()));
+            }
+        }
+        return files;
+    }
+
+    private static boolean isSequenceFile(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        for (String extension : EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("usage: java GeneAlchemyCLI [--ops " + String.join(",", OPERATIONS) + "] [--motifs M1,M2]"
+                + " [--min-arm 4] [--max-arm 100] [--min-orf 30] [--table 1] [--rna] [--threads N]"
+                + " [--format tsv|json] [--out file] file-or-directory...");
+        System.exit(2);
+    }
+}
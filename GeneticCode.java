@@ -0,0 +1,79 @@
+import java.util.Map;
+import java.util.TreeMap;
+
+// Genetic Code - NCBI translation tables as 64-entry lookups indexed by the 2-bit codon encoding
+// (first base * 16 + second * 4 + third, with A=0 C=1 G=2 T/U=3)
+final class GeneticCode {
+    static final byte STOP = '*';
+    static final byte UNKNOWN = 'X';
+    static final int START_CODON = 3 * 4 + 2;  // ATG
+
+    // Amino acids in the NCBI order, where each base runs through T, C, A, G
+    private static final Map<Integer, String[]> NCBI_TABLES = new TreeMap<>();
+
+    static {
+        NCBI_TABLES.put(1, new String[]{"Standard",
+                "FFLLSSSSYY**CC*WLLLLPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG"});
+        NCBI_TABLES.put(2, new String[]{"Vertebrate Mitochondrial",
+                "FFLLSSSSYY**CCWWLLLLPPPPHHQQRRRRIIMMTTTTNNKKSS**VVVVAAAADDEEGGGG"});
+        NCBI_TABLES.put(3, new String[]{"Yeast Mitochondrial",
+                "FFLLSSSSYY**CCWWTTTTPPPPHHQQRRRRIIMMTTTTNNKKSSRRVVVVAAAADDEEGGGG"});
+        NCBI_TABLES.put(4, new String[]{"Mold, Protozoan and Coelenterate Mitochondrial",
+                "FFLLSSSSYY**CCWWLLLLPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG"});
+        NCBI_TABLES.put(5, new String[]{"Invertebrate Mitochondrial",
+                "FFLLSSSSYY**CCWWLLLLPPPPHHQQRRRRIIMMTTTTNNKKSSSSVVVVAAAADDEEGGGG"});
+        NCBI_TABLES.put(6, new String[]{"Ciliate, Dasycladacean and Hexamita Nuclear",
+                "FFLLSSSSYYQQCC*WLLLLPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG"});
+        NCBI_TABLES.put(9, new String[]{"Echinoderm and Flatworm Mitochondrial",
+                "FFLLSSSSYY**CCWWLLLLPPPPHHQQRRRRIIIMTTTTNNNKSSSSVVVVAAAADDEEGGGG"});
+        NCBI_TABLES.put(11, new String[]{"Bacterial, Archaeal and Plant Plastid",
+                "FFLLSSSSYY**CC*WLLLLPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG"});
+        NCBI_TABLES.put(12, new String[]{"Alternative Yeast Nuclear",
+                "FFLLSSSSYY**CC*WLLLSPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG"});
+    }
+
+    static final GeneticCode STANDARD = forTable(1);
+
+    private final int id;
+    private final String name;
+    private final byte[] aminoAcids = new byte[64];
+
+    private GeneticCode(int id, String name, String ncbiOrder) {
+        this.id = id;
+        this.name = name;
+        int[] ncbiPosition = {2, 1, 3, 0};  // A C G T -> position in T C A G
+        for (int codon = 0; codon < 64; codon++) {
+            int ncbi = 16 * ncbiPosition[codon >>> 4] + 4 * ncbiPosition[(codon >>> 2) & 3] + ncbiPosition[codon & 3];
+            aminoAcids[codon] = (byte) ncbiOrder.charAt(ncbi);
+        }
+    }
+
+    static GeneticCode forTable(int id) {
+        String[] table = NCBI_TABLES.get(id);
+        if (table == null) {
+            throw new IllegalArgumentException("Unsupported NCBI translation table: " + id);
+        }
+        return new GeneticCode(id, table[0], table[1]);
+    }
+
+    static int[] supportedTables() {
+        return NCBI_TABLES.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    int id() {
+        return id;
+    }
+
+    String name() {
+        return name;
+    }
+
+    // Amino acid for a codon index in [0, 64)
+    byte translate(int codon) {
+        return aminoAcids[codon];
+    }
+
+    boolean isStop(int codon) {
+        return aminoAcids[codon] == STOP;
+    }
+}
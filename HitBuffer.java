@@ -0,0 +1,110 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+// Hit Buffer - growable (start, end, label, score) columns in plain int arrays, 16 bytes per hit
+// instead of a boxed object or a copied substring each. A limit keeps the first hits only and
+// counts the rest, so an unexpectedly large result cannot exhaust the heap. Serializable so the
+// ResultCache can keep it.
+final class HitBuffer implements HitSink, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int limit;
+    private long total;
+    private int[] starts;
+    private int[] ends;
+    private int[] labels;
+    private int[] scores;
+    private int size;
+
+    HitBuffer() {
+        this(16);
+    }
+
+    HitBuffer(int capacity) {
+        this(capacity, Integer.MAX_VALUE);
+    }
+
+    // Keeps at most limit hits; total() still counts every hit received
+    HitBuffer(int capacity, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        this.limit = limit;
+        capacity = Math.max(1, Math.min(capacity, limit));
+        starts = new int[capacity];
+        ends = new int[capacity];
+        labels = new int[capacity];
+        scores = new int[capacity];
+    }
+
+    @Override
+    public void hit(int start, int end, int label, int score) {
+        total++;
+        if (size == limit) {
+            return;
+        }
+        if (size == starts.length) {
+            int capacity = (int) Math.min(limit, size + (size >> 1) + 1L);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        labels[size] = label;
+        scores[size++] = score;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Hits received, including those past the limit
+    long total() {
+        return total;
+    }
+
+    int start(int index) {
+        return starts[index];
+    }
+
+    int end(int index) {
+        return ends[index];
+    }
+
+    int label(int index) {
+        return labels[index];
+    }
+
+    int score(int index) {
+        return scores[index];
+    }
+
+    // Keeps the arrays for reuse
+    void clear() {
+        size = 0;
+        total = 0;
+    }
+
+    // Drops the spare capacity, e.g. before the buffer is cached
+    void trimToSize() {
+        if (size < starts.length) {
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            labels = Arrays.copyOf(labels, size);
+            scores = Arrays.copyOf(scores, size);
+        }
+    }
+
+    // Hands every hit to another sink in insertion order, e.g. a ResultExporter
+    void replay(HitSink sink) {
+        for (int i = 0; i < size; i++) {
+            sink.hit(starts[i], ends[i], labels[i], scores[i]);
+        }
+    }
+
+    long sizeInBytes() {
+        return 16L * starts.length;
+    }
+}
@@ -0,0 +1,6 @@
+// Hit Sink - receives analysis hits one at a time as (start, end, label, score) with 0-based
+// half-open coordinates, so results can be buffered or written out without an object per hit.
+// label indexes a name table that belongs to the producer, e.g. the motif id of MotifSearcher.
+interface HitSink {
+    void hit(int start, int end, int label, int score);
+}
@@ -0,0 +1,63 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+
+// Image Cache - decodes and scales images once, on a background thread, and hands the cached
+// icon to every label that asks for the same image at the same size
+final class ImageCache {
+    private static final Map<String, CompletableFuture<ImageIcon>> ICONS = new ConcurrentHashMap<>();
+    private static final ExecutorService DECODER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-decoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ImageCache() {
+    }
+
+    // Sets the label's icon once the image is ready; a missing or unreadable file leaves it empty
+    static void load(JLabel label, String path, int width, int height) {
+        icon(path, width, height).thenAccept(icon -> SwingUtilities.invokeLater(() -> label.setIcon(icon)));
+    }
+
+    static CompletableFuture<ImageIcon> icon(String path, int width, int height) {
+        return ICONS.computeIfAbsent(path + "@" + width + "x" + height,
+                key -> CompletableFuture.supplyAsync(() -> decode(path, width, height), DECODER)
+                        .exceptionally(ex -> {
+                            System.out.println("Could not load image " + path + ": " + ex.getMessage());
+                            return null;
+                        }));
+    }
+
+    // One bilinear draw into the target size instead of Image.getScaledInstance, which rescales
+    // lazily on the EDT at paint time
+    private static ImageIcon decode(String path, int width, int height) {
+        try {
+            BufferedImage source = ImageIO.read(new File(path));
+            if (source == null) {
+                throw new IOException("unsupported image format");
+            }
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = scaled.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+            g.dispose();
+            return new ImageIcon(scaled);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+// Incremental Analysis - base counts, GC content and motif hits of a text that is being edited,
+// updated in time proportional to the edit instead of the text. The text is kept in chunks of
+// about CHUNK_SIZE characters with a Fenwick tree over their lengths to find the chunk of an
+// offset; motif hits are stored per chunk relative to the chunk start, so an edit only shifts
+// the hits of the one chunk it lands in. After an edit only the edited range, widened by the
+// longest motif, is searched again. Not thread safe; Swing calls it on the EDT.
+final class IncrementalAnalysis {
+    static final int CHUNK_SIZE = 4096;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int[] tree;  // Fenwick tree over chunk lengths, 1-based
+    private int length;
+    private final long[] counts = new long[PackedSequence.INVALID + 1];  // by PackedSequence code
+    private MotifSearcher searcher;
+    private int[] motifTotals = new int[0];
+
+    IncrementalAnalysis() {
+        chunks.add(new Chunk());
+        rebuildTree();
+    }
+
+    // Keeps the analysis in step with a document; onChange runs after every update
+    DocumentListener attach(Document document, Runnable onChange) {
+        try {
+            edit(0, length, document.getText(0, document.getLength()));
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+        DocumentListener listener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                try {
+                    edit(e.getOffset(), 0, document.getText(e.getOffset(), e.getLength()));
+                } catch (BadLocationException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                onChange.run();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                edit(e.getOffset(), e.getLength(), "");
+                onChange.run();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // attribute changes only
+            }
+        };
+        document.addDocumentListener(listener);
+        return listener;
+    }
+
+    // Replaces removed characters at offset with the inserted ones
+    void edit(int offset, int removed, CharSequence inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > length) {
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed) + ") out of range for length " + length);
+        }
+        int reach = searcher == null ? 0 : searcher.maxLength() - 1;
+        int from = Math.max(0, offset - reach);
+        if (searcher != null) {
+            dropHits(from, offset + removed);  // every hit that overlaps the edit or starts just before it
+        }
+        if (removed > 0) {
+            delete(offset, removed);
+        }
+        if (inserted.length() > 0) {
+            insert(offset, inserted);
+        }
+        if (searcher != null) {
+            scan(from, offset + inserted.length());
+        }
+    }
+
+    // Motifs to track, or null for none; the whole text is searched once
+    void setMotifs(MotifSearcher searcher) {
+        for (Chunk chunk : chunks) {
+            chunk.hits = 0;
+        }
+        this.searcher = searcher;
+        this.motifTotals = new int[searcher == null ? 0 : searcher.motifCount()];
+        if (searcher != null) {
+            scan(0, length);
+        }
+    }
+
+    MotifSearcher motifs() {
+        return searcher;
+    }
+
+    int length() {
+        return length;
+    }
+
+    // Count of a PackedSequence code; T also counts U, N counts IUPAC codes, INVALID the rest
+    long count(int code) {
+        return counts[code];
+    }
+
+    // Percentage of G and C over the whole length, as SequenceStats.gcContent
+    double gcContent() {
+        return length == 0 ? 0 : (counts[PackedSequence.G] + counts[PackedSequence.C]) * 100.0 / length;
+    }
+
+    int hitCount(int motif) {
+        return motifTotals[motif];
+    }
+
+    // Ascending 0-based starts of a motif, at most limit of them
+    int[] starts(int motif, int limit) {
+        int[] out = new int[Math.min(limit, motifTotals[motif])];
+        int count = 0;
+        int chunkStart = 0;
+        for (int k = 0; k < chunks.size() && count < out.length; k++) {
+            Chunk chunk = chunks.get(k);
+            for (int h = 0; h < chunk.hits && count < out.length; h++) {
+                if (chunk.hitMotifs[h] == motif) {
+                    out[count++] = chunkStart + chunk.hitStarts[h];
+                }
+            }
+            chunkStart += chunk.text.length();
+        }
+        return out;
+    }
+
+    String text(int from, int to) {
+        StringBuilder out = new StringBuilder(to - from);
+        int k = chunkAt(from);
+        int chunkStart = prefix(k);
+        while (chunkStart < to) {
+            StringBuilder text = chunks.get(k++).text;
+            out.append(text, Math.max(0, from - chunkStart), Math.min(text.length(), to - chunkStart));
+            chunkStart += text.length();
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return text(0, length);
+    }
+
+    private void insert(int offset, CharSequence inserted) {
+        int k = chunkAt(offset);
+        Chunk chunk = chunks.get(k);
+        int local = offset - prefix(k);
+        int n = inserted.length();
+        chunk.text.insert(local, inserted);
+        chunk.shiftHits(local, n);
+        count(inserted, 0, n, 1);
+        length += n;
+        if (chunk.text.length() > 2 * CHUNK_SIZE) {
+            split(k);
+        } else {
+            add(k, n);
+        }
+    }
+
+    private void delete(int offset, int removed) {
+        int k = chunkAt(offset);
+        int first = k;
+        int chunkStart = prefix(k);
+        int left = removed;
+        while (left > 0) {
+            Chunk chunk = chunks.get(k);
+            int local = offset - chunkStart;
+            int n = Math.min(left, chunk.text.length() - local);
+            count(chunk.text, local, local + n, -1);
+            chunk.text.delete(local, local + n);
+            chunk.shiftHits(local + n, -n);
+            add(k, -n);
+            left -= n;
+            chunkStart += chunk.text.length();
+            k++;
+        }
+        length -= removed;
+        compact(first, k);
+    }
+
+    // Splits an overgrown chunk into CHUNK_SIZE pieces, e.g. after a paste
+    private void split(int k) {
+        Chunk chunk = chunks.remove(k);
+        List<Chunk> pieces = new ArrayList<>();
+        for (int from = 0; from < chunk.text.length(); from += CHUNK_SIZE) {
+            Chunk piece = new Chunk();
+            piece.text.append(chunk.text, from, Math.min(chunk.text.length(), from + CHUNK_SIZE));
+            pieces.add(piece);
+        }
+        for (int h = 0; h < chunk.hits; h++) {
+            int start = chunk.hitStarts[h];
+            pieces.get(start / CHUNK_SIZE).appendHit(start % CHUNK_SIZE, chunk.hitMotifs[h]);
+        }
+        chunks.addAll(k, pieces);
+        rebuildTree();
+    }
+
+    // Folds chunks in [from, to) that shrank below a quarter of CHUNK_SIZE into their left neighbour
+    private void compact(int from, int to) {
+        boolean changed = false;
+        for (int k = Math.min(to, chunks.size() - 1); k >= Math.max(from, 1); k--) {
+            Chunk chunk = chunks.get(k);
+            Chunk previous = chunks.get(k - 1);
+            if (chunk.text.length() < CHUNK_SIZE / 4 || previous.text.length() < CHUNK_SIZE / 4) {
+                int shift = previous.text.length();
+                previous.text.append(chunk.text);
+                for (int h = 0; h < chunk.hits; h++) {
+                    previous.appendHit(shift + chunk.hitStarts[h], chunk.hitMotifs[h]);
+                }
+                chunks.remove(k);
+                changed = true;
+            }
+        }
+        if (changed) {
+            rebuildTree();
+            for (int k = Math.min(to, chunks.size() - 1); k >= Math.max(from - 1, 0); k--) {
+                if (chunks.get(k).text.length() > 2 * CHUNK_SIZE) {
+                    split(k);  // a merge can overshoot
+                }
+            }
+        }
+    }
+
+    private void dropHits(int from, int to) {
+        int k = chunkAt(from);
+        int chunkStart = prefix(k);
+        while (k < chunks.size() && chunkStart < to) {
+            Chunk chunk = chunks.get(k++);
+            int kept = 0;
+            for (int h = 0; h < chunk.hits; h++) {
+                int start = chunkStart + chunk.hitStarts[h];
+                if (start >= from && start < to) {
+                    motifTotals[chunk.hitMotifs[h]]--;
+                } else {
+                    chunk.hitStarts[kept] = chunk.hitStarts[h];
+                    chunk.hitMotifs[kept++] = chunk.hitMotifs[h];
+                }
+            }
+            chunk.hits = kept;
+            chunkStart += chunk.text.length();
+        }
+    }
+
+    // Adds the hits that start in [from, to); the search reads on to the end of the longest motif
+    private void scan(int from, int to) {
+        int end = Math.min(length, to + searcher.maxLength() - 1);
+        if (from >= end) {
+            return;
+        }
+        String text = text(from, end);
+        byte[] codes = new byte[text.length()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (byte) PackedSequence.codeOf(text.charAt(i));
+        }
+        MotifSearcher.Hits hits = searcher.search(codes);
+        long[] found = new long[hits.size()];
+        int count = 0;
+        for (int i = 0; i < hits.size(); i++) {
+            int start = from + hits.start(i);
+            if (start < to) {
+                found[count++] = (long) start << 32 | hits.motif(i);
+            }
+        }
+        Arrays.sort(found, 0, count);
+        int k = 0;
+        int chunkStart = 0;
+        for (int i = 0; i < count; i++) {
+            int start = (int) (found[i] >>> 32);
+            int motif = (int) found[i];
+            if (i == 0) {
+                k = chunkAt(start);
+                chunkStart = prefix(k);
+            }
+            while (start >= chunkStart + chunks.get(k).text.length()) {
+                chunkStart += chunks.get(k++).text.length();
+            }
+            chunks.get(k).insertHit(start - chunkStart, motif);
+            motifTotals[motif]++;
+        }
+    }
+
+    private void count(CharSequence text, int from, int to, int sign) {
+        for (int i = from; i < to; i++) {
+            counts[PackedSequence.codeOf(text.charAt(i))] += sign;
+        }
+    }
+
+    // Index of the chunk holding offset; offsets at the very end belong to the last chunk
+    private int chunkAt(int offset) {
+        if (offset >= length) {
+            return chunks.size() - 1;
+        }
+        int k = 0;
+        for (int step = Integer.highestOneBit(chunks.size()); step > 0; step >>= 1) {
+            if (k + step <= chunks.size() && tree[k + step] <= offset) {
+                k += step;
+                offset -= tree[k];
+            }
+        }
+        return k;
+    }
+
+    // Total length of the chunks before k
+    private int prefix(int k) {
+        int sum = 0;
+        for (int i = k; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void add(int k, int delta) {
+        for (int i = k + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void rebuildTree() {
+        tree = new int[chunks.size() + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += chunks.get(i - 1).text.length();
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    // Text of one chunk and its hits as (start relative to the chunk, motif), sorted by start
+    private static final class Chunk {
+        final StringBuilder text = new StringBuilder();
+        int[] hitStarts = new int[4];
+        int[] hitMotifs = new int[4];
+        int hits;
+
+        void insertHit(int start, int motif) {
+            int at = hits;
+            while (at > 0 && hitStarts[at - 1] > start) {
+                at--;
+            }
+            grow();
+            System.arraycopy(hitStarts, at, hitStarts, at + 1, hits - at);
+            System.arraycopy(hitMotifs, at, hitMotifs, at + 1, hits - at);
+            hitStarts[at] = start;
+            hitMotifs[at] = motif;
+            hits++;
+        }
+
+        void appendHit(int start, int motif) {
+            grow();
+            hitStarts[hits] = start;
+            hitMotifs[hits++] = motif;
+        }
+
+        // Moves the hits starting at or after from by delta
+        void shiftHits(int from, int delta) {
+            for (int h = hits - 1; h >= 0 && hitStarts[h] >= from; h--) {
+                hitStarts[h] += delta;
+            }
+        }
+
+        private void grow() {
+            if (hits == hitStarts.length) {
+                hitStarts = Arrays.copyOf(hitStarts, hits * 2);
+                hitMotifs = Arrays.copyOf(hitMotifs, hits * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,567 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// K-mer Counter - counts every k-mer (1 <= k <= 31) of base codes as a 2-bit packed long key,
+// optionally canonical (the smaller of a k-mer and its reverse complement). Keys are hashed into
+// partitions, each a primitive open-addressing table with its own lock. Workers scan chunks of the
+// input and hand keys to a partition in batches, so locking is rare. When a table outgrows its
+// share of the memory bound it is written out as a sorted run and emptied; queries merge the runs,
+// and a point query binary-searches each run.
+final class KmerCounter {
+    static final int MAX_K = 31;
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int BATCH = 4096;  // keys buffered per partition by each worker
+    private static final int RUN_RECORD_BYTES = Long.BYTES + Integer.BYTES;  // key, count in a spilled run
+
+    private final int k;
+    private final boolean canonical;
+    private final ForkJoinPool pool;
+    private final int partitionBits;
+    private final long maxEntries;
+    private final Path spillDirectory;
+
+    // maxEntries bounds the distinct k-mers held in memory over all partitions; spillDirectory
+    // may be null, in which case the bound is not enforced
+    KmerCounter(int k, boolean canonical, ForkJoinPool pool, long maxEntries, Path spillDirectory) {
+        if (k < 1 || k > MAX_K) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_K);
+        }
+        this.k = k;
+        this.canonical = canonical;
+        this.pool = pool;
+        this.partitionBits = Math.min(2 * k, 32 - Integer.numberOfLeadingZeros(Math.max(1, 4 * pool.getParallelism() - 1)));
+        this.maxEntries = maxEntries;
+        this.spillDirectory = spillDirectory;
+    }
+
+    KmerCounter(int k, boolean canonical) {
+        this(k, canonical, ForkJoinPool.commonPool(), Long.MAX_VALUE, null);
+    }
+
+    Counts count(Sequence sequence) {
+        return count(sequence.toCodes());
+    }
+
+    // Codes as in Sequence.toCodes; N and invalid codes break k-mers
+    Counts count(byte[] codes) {
+        Partition[] partitions = new Partition[1 << partitionBits];
+        long share = maxEntries == Long.MAX_VALUE || spillDirectory == null ? Long.MAX_VALUE
+                : Math.max(1024, maxEntries / partitions.length);
+        for (int p = 0; p < partitions.length; p++) {
+            partitions[p] = new Partition(share);
+        }
+        List<Callable<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < codes.length; from += DEFAULT_CHUNK_SIZE) {
+            int start = from;
+            int end = (int) Math.min(codes.length, (long) from + DEFAULT_CHUNK_SIZE);
+            chunks.add(() -> {
+                scan(codes, start, end, partitions);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> chunk : pool.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("K-mer counting interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+        return new Counts(k, canonical, partitions);
+    }
+
+    // Counts the k-mers that end in [from, to); the k - 1 bases before from are read again
+    private void scan(byte[] codes, int from, int to, Partition[] partitions) {
+        long mask = (1L << (2 * k)) - 1;
+        int rcShift = 2 * (k - 1);
+        long[][] buffers = new long[partitions.length][BATCH];
+        int[] fill = new int[partitions.length];
+        long forward = 0;
+        long reverse = 0;
+        int valid = 0;
+        for (int i = Math.max(0, from - k + 1); i < to; i++) {
+            int code = codes[i];
+            if (code > PackedSequence.T) {
+                valid = 0;
+                continue;
+            }
+            forward = ((forward << 2) | code) & mask;
+            reverse = (reverse >>> 2) | ((long) (3 - code) << rcShift);
+            if (++valid < k || i < from) {
+                continue;
+            }
+            long key = canonical ? Math.min(forward, reverse) : forward;
+            int p = partitionOf(key, partitionBits);
+            long[] buffer = buffers[p];
+            buffer[fill[p]++] = key;
+            if (fill[p] == BATCH) {
+                partitions[p].addAll(buffer, BATCH, spillDirectory);
+                fill[p] = 0;
+            }
+        }
+        for (int p = 0; p < partitions.length; p++) {
+            if (fill[p] > 0) {
+                partitions[p].addAll(buffers[p], fill[p], spillDirectory);
+            }
+        }
+    }
+
+    private static int partitionOf(long key, int bits) {
+        return bits == 0 ? 0 : (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+    }
+
+    // A k-mer key written out as bases
+    static String decode(long key, int k) {
+        char[] bases = new char[k];
+        for (int i = k - 1; i >= 0; i--) {
+            bases[i] = "ACGT".charAt((int) (key & 3));
+            key >>>= 2;
+        }
+        return new String(bases);
+    }
+
+    // Key of a k-mer given as bases, or -1 when it holds anything but A, C, G, T/U
+    static long encode(CharSequence kmer) {
+        long key = 0;
+        for (int i = 0; i < kmer.length(); i++) {
+            int code = PackedSequence.codeOf(kmer.charAt(i));
+            if (code > PackedSequence.T) {
+                return -1;
+            }
+            key = (key << 2) | code;
+        }
+        return key;
+    }
+
+    static long reverseComplement(long key, int k) {
+        long reverse = 0;
+        for (int i = 0; i < k; i++) {
+            reverse = (reverse << 2) | (3 - (key & 3));
+            key >>>= 2;
+        }
+        return reverse;
+    }
+
+    interface KmerConsumer {
+        void accept(long key, long count);
+    }
+
+    // Open-addressing long -> int table with linear probing; -1 marks an empty slot, which no
+    // k-mer key can be since k <= 31 leaves the top bits clear
+    static final class LongIntTable {
+        private static final long EMPTY = -1L;
+
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        LongIntTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0xC2B2AE3D27D4EB4FL;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        void add(long key, int amount) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (true) {
+                long current = keys[slot];
+                if (current == key) {
+                    values[slot] += amount;
+                    return;
+                }
+                if (current == EMPTY) {
+                    keys[slot] = key;
+                    values[slot] = amount;
+                    if (++size * 4L > keys.length * 3L) {
+                        grow();
+                    }
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                long current = keys[slot];
+                if (current == key) {
+                    return values[slot];
+                }
+                if (current == EMPTY) {
+                    return 0;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    add(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        void forEach(KmerConsumer consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    consumer.accept(keys[i], values[i]);
+                }
+            }
+        }
+
+        // Keys in ascending order, for merging with spilled runs
+        long[] sortedKeys() {
+            long[] sorted = new long[size];
+            int n = 0;
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    sorted[n++] = key;
+                }
+            }
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    // One hash partition: the in-memory table plus any sorted runs spilled from it
+    private static final class Partition {
+        private final long maxEntries;
+        private LongIntTable table = new LongIntTable(1024);
+        private final List<Path> runs = new ArrayList<>();
+
+        Partition(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized void addAll(long[] keys, int count, Path spillDirectory) {
+            for (int i = 0; i < count; i++) {
+                table.add(keys[i], 1);
+            }
+            if (table.size() > maxEntries && spillDirectory != null) {
+                spill(spillDirectory);
+            }
+        }
+
+        private void spill(Path directory) {
+            try {
+                Files.createDirectories(directory);
+                Path run = Files.createTempFile(directory, "kmers", ".run");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+                    for (long key : table.sortedKeys()) {
+                        out.writeLong(key);
+                        out.writeInt(table.get(key));
+                    }
+                }
+                runs.add(run);
+                table = new LongIntTable(1024);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    // Finished counts; close() removes any spilled runs
+    static final class Counts implements AutoCloseable {
+        private final int k;
+        private final boolean canonical;
+        private final Partition[] partitions;
+
+        private Counts(int k, boolean canonical, Partition[] partitions) {
+            this.k = k;
+            this.canonical = canonical;
+            this.partitions = partitions;
+        }
+
+        int k() {
+            return k;
+        }
+
+        boolean isCanonical() {
+            return canonical;
+        }
+
+        // Occurrences of one k-mer (or of it and its reverse complement when canonical)
+        long count(CharSequence kmer) {
+            if (kmer.length() != k) {
+                throw new IllegalArgumentException("Expected a " + k + "-mer, got " + kmer.length() + " bases");
+            }
+            long key = encode(kmer);
+            if (key < 0) {
+                return 0;
+            }
+            if (canonical) {
+                key = Math.min(key, reverseComplement(key, k));
+            }
+            Partition partition = partitions[partitionOf(key, Integer.numberOfTrailingZeros(partitions.length))];
+            long total = partition.table.get(key);
+            if (!partition.runs.isEmpty()) {
+                ByteBuffer record = ByteBuffer.allocate(RUN_RECORD_BYTES);
+                for (Path run : partition.runs) {
+                    total += countInRun(run, key, record);
+                }
+            }
+            return total;
+        }
+
+        // Every distinct k-mer once with its total count; no order across partitions
+        void forEach(KmerConsumer consumer) {
+            for (Partition partition : partitions) {
+                if (partition.runs.isEmpty()) {
+                    partition.table.forEach(consumer);
+                } else {
+                    merge(partition, consumer);
+                }
+            }
+        }
+
+        long distinct() {
+            long[] distinct = new long[1];
+            forEach((key, count) -> distinct[0]++);
+            return distinct[0];
+        }
+
+        long total() {
+            long[] total = new long[1];
+            forEach((key, count) -> total[0] += count);
+            return total[0];
+        }
+
+        // The n most frequent k-mers, most frequent first, ties by key; [i][0] is the key, [i][1] the count
+        long[][] topN(int n) {
+            long[] heapKeys = new long[n];
+            long[] heapCounts = new long[n];
+            int[] size = new int[1];
+            forEach((key, count) -> {
+                if (size[0] < n) {
+                    int i = size[0]++;
+                    heapKeys[i] = key;
+                    heapCounts[i] = count;
+                    siftUp(heapKeys, heapCounts, i);
+                } else if (n > 0 && less(heapCounts[0], heapKeys[0], count, key)) {
+                    heapKeys[0] = key;
+                    heapCounts[0] = count;
+                    siftDown(heapKeys, heapCounts, size[0]);
+                }
+            });
+            long[][] top = new long[size[0]][];
+            for (int i = size[0] - 1; i >= 0; i--) {
+                top[i] = new long[]{heapKeys[0], heapCounts[0]};
+                heapKeys[0] = heapKeys[i];
+                heapCounts[0] = heapCounts[i];
+                siftDown(heapKeys, heapCounts, i);
+            }
+            return top;
+        }
+
+        // Min-heap order: lower count first, and for equal counts the larger key first
+        private static boolean less(long countA, long keyA, long countB, long keyB) {
+            return countA < countB || (countA == countB && keyA > keyB);
+        }
+
+        private static void siftUp(long[] keys, long[] counts, int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(counts[i], keys[i], counts[parent], keys[parent])) {
+                    break;
+                }
+                swap(keys, counts, i, parent);
+                i = parent;
+            }
+        }
+
+        private static void siftDown(long[] keys, long[] counts, int size) {
+            int i = 0;
+            while (true) {
+                int smallest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (less(counts[child], keys[child], counts[smallest], keys[smallest])) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(keys, counts, i, smallest);
+                i = smallest;
+            }
+        }
+
+        private static void swap(long[] keys, long[] counts, int a, int b) {
+            long key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+            long count = counts[a];
+            counts[a] = counts[b];
+            counts[b] = count;
+        }
+
+        // Number of distinct k-mers seen exactly m times, for m in [1, maxMultiplicity); the last
+        // bucket collects everything seen maxMultiplicity times or more
+        long[] histogram(int maxMultiplicity) {
+            long[] histogram = new long[maxMultiplicity + 1];
+            forEach((key, count) -> histogram[(int) Math.min(count, maxMultiplicity)]++);
+            return histogram;
+        }
+
+        // Dense count per k-mer key, for k <= 12 (4^12 entries)
+        long[] spectrum() {
+            if (k > 12) {
+                throw new IllegalStateException("A dense spectrum needs k <= 12, this is k = " + k);
+            }
+            long[] spectrum = new long[1 << (2 * k)];
+            forEach((key, count) -> spectrum[(int) key] += count);
+            return spectrum;
+        }
+
+        // k-way merge of the sorted table keys and the sorted runs, summing equal keys
+        private static void merge(Partition partition, KmerConsumer consumer) {
+            List<DataInputStream> inputs = new ArrayList<>();
+            try {
+                for (Path run : partition.runs) {
+                    inputs.add(new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16)));
+                }
+                int sources = inputs.size() + 1;
+                long[] heads = new long[sources];
+                long[] counts = new long[sources];
+                boolean[] live = new boolean[sources];
+                long[] tableKeys = partition.table.sortedKeys();
+                int[] tableIndex = new int[1];
+                for (int s = 0; s < sources; s++) {
+                    live[s] = advance(s, inputs, partition.table, tableKeys, tableIndex, heads, counts);
+                }
+                while (true) {
+                    long smallest = Long.MAX_VALUE;
+                    for (int s = 0; s < sources; s++) {
+                        if (live[s] && heads[s] < smallest) {
+                            smallest = heads[s];
+                        }
+                    }
+                    if (smallest == Long.MAX_VALUE) {
+                        return;
+                    }
+                    long total = 0;
+                    for (int s = 0; s < sources; s++) {
+                        if (live[s] && heads[s] == smallest) {
+                            total += counts[s];
+                            live[s] = advance(s, inputs, partition.table, tableKeys, tableIndex, heads, counts);
+                        }
+                    }
+                    consumer.accept(smallest, total);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                for (DataInputStream input : inputs) {
+                    try {
+                        input.close();
+                    } catch (IOException ignored) {
+                        // read only
+                    }
+                }
+            }
+        }
+
+        // Source 0 is the in-memory table, source s > 0 is run s - 1
+        private static boolean advance(int source, List<DataInputStream> inputs, LongIntTable table, long[] tableKeys,
+                                       int[] tableIndex, long[] heads, long[] counts) throws IOException {
+            if (source == 0) {
+                if (tableIndex[0] == tableKeys.length) {
+                    return false;
+                }
+                heads[0] = tableKeys[tableIndex[0]++];
+                counts[0] = table.get(heads[0]);
+                return true;
+            }
+            DataInputStream input = inputs.get(source - 1);
+            try {
+                heads[source] = input.readLong();
+            } catch (EOFException ex) {
+                return false;
+            }
+            counts[source] = input.readInt();
+            return true;
+        }
+
+        // Binary search of a run for one key with positioned reads, so a query reads
+        // log2(records) records of each run instead of all of them
+        private static long countInRun(Path run, long key, ByteBuffer record) {
+            try (FileChannel channel = FileChannel.open(run, StandardOpenOption.READ)) {
+                long low = 0;
+                long high = channel.size() / RUN_RECORD_BYTES;
+                while (low < high) {
+                    long mid = (low + high) >>> 1;
+                    record.clear();
+                    while (record.hasRemaining()) {
+                        if (channel.read(record, mid * RUN_RECORD_BYTES + record.position()) < 0) {
+                            throw new EOFException(run + " ends inside record " + mid);
+                        }
+                    }
+                    long runKey = record.getLong(0);
+                    if (runKey == key) {
+                        return record.getInt(Long.BYTES);
+                    }
+                    if (runKey < key) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return 0;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (Partition partition : partitions) {
+                for (Path run : partition.runs) {
+                    try {
+                        Files.deleteIfExists(run);
+                    } catch (IOException ignored) {
+                        // left for the temp directory cleanup
+                    }
+                }
+                partition.runs.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,543 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+// Metrics - per operation call and error counts, units processed (bases for the sequence
+// operations), allocated bytes and a latency histogram. Recording only touches LongAdders and
+// atomic bucket counters, and does nothing but read one volatile flag when metrics are off.
+// Every operation is an MBean under genealchemy:type=Operation and the switch is the Enabled
+// attribute of genealchemy:type=Metrics. JMX is only started by the first call recorded while
+// metrics are on (or by setEnabled(true)), so loading the instrumented classes costs nothing and
+// a run that starts with metrics off never touches JMX at all.
+//
+//   -Dgenealchemy.metrics=false  starts switched off
+//   -Dgenealchemy.metrics.dumpSeconds=60 [-Dgenealchemy.metrics.csv=metrics.csv]  periodic dump,
+//                                to the CSV file when given and to standard output otherwise
+final class Metrics {
+    private static final Map<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = Boolean.parseBoolean(System.getProperty("genealchemy.metrics", "true"));
+    private static volatile boolean started;
+
+    // Registers the MBeans and writes the periodic dumps, off the caller's thread so that the
+    // first recorded call does not pay for starting the platform MBean server; guarded by Metrics
+    private static ScheduledExecutorService background;
+
+    private Metrics() {
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean on) {
+        enabled = on;
+        if (on) {
+            start();
+        }
+    }
+
+    // The operation of that name, created on first use; keep it in a constant
+    static Operation operation(String name) {
+        Operation operation = OPERATIONS.computeIfAbsent(name, Operation::new);
+        if (started) {
+            register(operation);
+        }
+        return operation;
+    }
+
+    static List<Operation> operations() {
+        List<Operation> operations = new ArrayList<>(OPERATIONS.values());
+        operations.sort((a, b) -> a.name.compareTo(b.name));
+        return operations;
+    }
+
+    static void resetAll() {
+        for (Operation operation : OPERATIONS.values()) {
+            operation.reset();
+        }
+    }
+
+    // Registers the switch and every operation so far, and schedules the dumps; once
+    private static synchronized void start() {
+        if (started) {
+            return;
+        }
+        background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started = true;  // before the loop, so an operation created meanwhile registers itself
+        register("genealchemy:type=Metrics", new ControlBean());
+        for (Operation operation : OPERATIONS.values()) {
+            register(operation);
+        }
+        long seconds = Long.getLong("genealchemy.metrics.dumpSeconds", 0);
+        String csv = System.getProperty("genealchemy.metrics.csv");
+        if (seconds > 0) {
+            background.scheduleAtFixedRate(() -> {
+                try {
+                    if (csv != null) {
+                        appendCsv(Paths.get(csv));
+                    } else {
+                        printSummary(System.out);
+                    }
+                } catch (IOException ex) {
+                    System.out.println("Could not write metrics: " + ex.getMessage());
+                }
+            }, seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private static synchronized void register(Operation operation) {
+        if (!operation.registered) {
+            operation.registered = true;
+            register("genealchemy:type=Operation,name=" + ObjectName.quote(operation.name), operation.new Bean());
+        }
+    }
+
+    private static void register(String name, DynamicMBean bean) {
+        background.execute(() -> {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(name));
+            } catch (JMException | SecurityException ex) {
+                System.out.println("Could not register MBean " + name + ": " + ex.getMessage());
+            }
+        });
+    }
+
+    // HotSpot's per-thread allocation counter, or null on VMs without one; looked up by the
+    // first recorded call, since the ThreadMXBean is not free to create
+    private static final class Allocation {
+        static final com.sun.management.ThreadMXBean COUNTER = allocationCounter();
+
+        private static com.sun.management.ThreadMXBean allocationCounter() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return threads;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Bytes allocated so far by the calling thread; work handed to other threads is not included
+    private static long threadAllocatedBytes() {
+        return Allocation.COUNTER != null ? Allocation.COUNTER.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    static final String CSV_HEADER = "time,operation,count,errors,units,units_per_s,allocated_bytes,"
+            + "mean_ns,p50_ns,p90_ns,p99_ns,p999_ns,max_ns";
+
+    static void appendCsv(Path file) throws IOException {
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                false, "UTF-8")) {
+            if (fresh) {
+                out.println(CSV_HEADER);
+            }
+            long now = System.currentTimeMillis();
+            for (Operation operation : operations()) {
+                out.println(now + "," + operation.csvRow());
+            }
+        }
+    }
+
+    static void printSummary(PrintStream out) {
+        for (Operation operation : operations()) {
+            if (operation.count() > 0) {
+                out.println(operation);
+            }
+        }
+    }
+
+    // One instrumented operation
+    static final class Operation {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+        private final Histogram latency = new Histogram();
+        private boolean registered;  // guarded by Metrics
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        String name() {
+            return name;
+        }
+
+        // Runs body and records it, units being the work it covers (e.g. bases)
+        <T> T time(long units, Supplier<T> body) {
+            if (!enabled) {
+                return body.get();
+            }
+            if (!started) {
+                start();
+            }
+            long bytes = threadAllocatedBytes();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                T result = body.get();
+                failed = false;
+                return result;
+            } finally {
+                record(System.nanoTime() - start, units, threadAllocatedBytes() - bytes, failed);
+            }
+        }
+
+        // As time, for bodies that throw checked exceptions such as the database calls
+        <T> T call(long units, Callable<T> body) throws Exception {
+            if (!enabled) {
+                return body.call();
+            }
+            if (!started) {
+                start();
+            }
+            long bytes = threadAllocatedBytes();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                T result = body.call();
+                failed = false;
+                return result;
+            } finally {
+                record(System.nanoTime() - start, units, threadAllocatedBytes() - bytes, failed);
+            }
+        }
+
+        void record(long elapsedNanos, long processedUnits, long allocatedBytes, boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            units.add(processedUnits);
+            nanos.add(elapsedNanos);
+            allocated.add(allocatedBytes);
+            latency.record(elapsedNanos);
+            if (elapsedNanos > max.get()) {
+                max.accumulateAndGet(elapsedNanos, Math::max);
+            }
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long errors() {
+            return errors.sum();
+        }
+
+        long units() {
+            return units.sum();
+        }
+
+        long allocatedBytes() {
+            return allocated.sum();
+        }
+
+        long maxNanos() {
+            return max.get();
+        }
+
+        double meanNanos() {
+            long calls = count.sum();
+            return calls == 0 ? 0 : nanos.sum() / (double) calls;
+        }
+
+        // Units per second of time spent inside the operation
+        double unitsPerSecond() {
+            long spent = nanos.sum();
+            return spent == 0 ? 0 : units.sum() * 1e9 / spent;
+        }
+
+        long percentileNanos(double percentile) {
+            return Math.min(latency.percentile(percentile), max.get());
+        }
+
+        void reset() {
+            count.reset();
+            errors.reset();
+            units.reset();
+            nanos.reset();
+            allocated.reset();
+            max.set(0);
+            latency.reset();
+        }
+
+        String csvRow() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%d,%.0f,%d,%d,%d,%d,%d", name, count(), errors(), units(),
+                    unitsPerSecond(), allocatedBytes(), meanNanos(), percentileNanos(50), percentileNanos(90),
+                    percentileNanos(99), percentileNanos(99.9), maxNanos());
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %d calls, %d errors, p50 %.3f ms, p99 %.3f ms, max %.3f ms, %.1f M units/s, %d bytes allocated",
+                    name, count(), errors(), percentileNanos(50) / 1e6, percentileNanos(99) / 1e6, maxNanos() / 1e6,
+                    unitsPerSecond() / 1e6, allocatedBytes());
+        }
+
+        // The operation's attributes as seen over JMX
+        private final class Bean extends AttributeBean {
+            Bean() {
+                super("Metrics of " + name,
+                        new String[]{"Count", "Errors", "Units", "UnitsPerSecond", "AllocatedBytes", "MeanNanos",
+                                "P50Nanos", "P90Nanos", "P99Nanos", "P999Nanos", "MaxNanos"},
+                        new String[]{"long", "long", "long", "double", "long", "double", "long", "long", "long", "long", "long"});
+            }
+
+            @Override
+            Object value(String attribute) {
+                switch (attribute) {
+                    case "Count": return count();
+                    case "Errors": return errors();
+                    case "Units": return units();
+                    case "UnitsPerSecond": return unitsPerSecond();
+                    case "AllocatedBytes": return allocatedBytes();
+                    case "MeanNanos": return meanNanos();
+                    case "P50Nanos": return percentileNanos(50);
+                    case "P90Nanos": return percentileNanos(90);
+                    case "P99Nanos": return percentileNanos(99);
+                    case "P999Nanos": return percentileNanos(99.9);
+                    case "MaxNanos": return maxNanos();
+                    default: return null;
+                }
+            }
+
+            @Override
+            public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+                if ("reset".equals(action)) {
+                    reset();
+                    return null;
+                }
+                return super.invoke(action, params, signature);
+            }
+
+            @Override
+            MBeanOperationInfo[] operations() {
+                return new MBeanOperationInfo[]{
+                        new MBeanOperationInfo("reset", "Clears the counters", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION)};
+            }
+        }
+    }
+
+    // Log-linear buckets in the manner of HdrHistogram: exact below 64 ns, then 32 buckets per
+    // power of two, so every bucket is within about 3% of the values it holds
+    static final class Histogram {
+        private static final int SUB_BUCKETS = 32;
+        private static final int LINEAR = 2 * SUB_BUCKETS;
+        private final AtomicLongArray counts = new AtomicLongArray(LINEAR + 58 * SUB_BUCKETS);
+
+        void record(long value) {
+            counts.incrementAndGet(index(Math.max(0, value)));
+        }
+
+        static int index(long value) {
+            if (value < LINEAR) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+            return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+        }
+
+        // Largest value that falls in the bucket
+        static long upperBound(int index) {
+            if (index < LINEAR) {
+                return index;
+            }
+            int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+            long top = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+            return ((top + 1) << shift) - 1;
+        }
+
+        long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length() - 1);
+        }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+        }
+    }
+
+    // The on/off switch and dumps over JMX
+    private static final class ControlBean extends AttributeBean {
+        ControlBean() {
+            super("GeneAlchemy metrics switch", new String[]{"Enabled"}, new String[]{"boolean"});
+        }
+
+        @Override
+        Object value(String attribute) {
+            return "Enabled".equals(attribute) ? enabled : null;
+        }
+
+        @Override
+        boolean writable(String attribute) {
+            return "Enabled".equals(attribute);
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            if (!"Enabled".equals(attribute.getName()) || !(attribute.getValue() instanceof Boolean)) {
+                throw new AttributeNotFoundException(attribute.getName() + " is not a writable boolean attribute");
+            }
+            setEnabled((Boolean) attribute.getValue());
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            if ("resetAll".equals(action)) {
+                resetAll();
+                return null;
+            }
+            if ("dumpCsv".equals(action) && params != null && params.length == 1) {
+                try {
+                    appendCsv(Paths.get(String.valueOf(params[0])));
+                    return null;
+                } catch (IOException ex) {
+                    throw new ReflectionException(ex, "Could not write " + params[0]);
+                }
+            }
+            return super.invoke(action, params, signature);
+        }
+
+        @Override
+        MBeanOperationInfo[] operations() {
+            return new MBeanOperationInfo[]{
+                    new MBeanOperationInfo("resetAll", "Clears every operation", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+                    new MBeanOperationInfo("dumpCsv", "Appends every operation to a CSV file",
+                            new MBeanParameterInfo[]{new MBeanParameterInfo("path", "java.lang.String", "CSV file")}, "void", MBeanOperationInfo.ACTION)};
+        }
+    }
+
+    // DynamicMBean over a fixed attribute list, since standard MBeans need public interfaces.
+    // Attributes are read-only unless a subclass says otherwise.
+    private abstract static class AttributeBean implements DynamicMBean {
+        private final String description;
+        private final String[] attributes;
+        private final String[] types;
+
+        AttributeBean(String description, String[] attributes, String[] types) {
+            this.description = description;
+            this.attributes = attributes;
+            this.types = types;
+        }
+
+        abstract Object value(String attribute);
+
+        boolean writable(String attribute) {
+            return false;
+        }
+
+        MBeanOperationInfo[] operations() {
+            return new MBeanOperationInfo[0];
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object value = value(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            AttributeList list = new AttributeList();
+            for (String name : names) {
+                Object value = value(name);
+                if (value != null) {
+                    list.add(new Attribute(name, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList list) {
+            AttributeList set = new AttributeList();
+            for (Attribute attribute : list.asList()) {
+                try {
+                    setAttribute(attribute);
+                    set.add(attribute);
+                } catch (JMException ex) {
+                    // left out of the result, as the DynamicMBean contract asks
+                }
+            }
+            return set;
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(action), "No operation " + action);
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            MBeanAttributeInfo[] info = new MBeanAttributeInfo[attributes.length];
+            for (int i = 0; i < attributes.length; i++) {
+                info[i] = new MBeanAttributeInfo(attributes[i], types[i], attributes[i], true, writable(attributes[i]), false);
+            }
+            return new MBeanInfo(getClass().getName(), description, info, null, operations(), null);
+        }
+    }
+}
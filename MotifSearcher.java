@@ -0,0 +1,390 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Motif Engine - compiles a whole set of motifs (IUPAC codes allowed) into one Aho-Corasick
+// automaton and reports every hit of every motif in a single pass over the sequence
+final class MotifSearcher {
+    // Motifs that expand to more concrete strings than this go to the bit-parallel matcher instead
+    static final int MAX_EXPANSION = 1024;
+    static final int STREAM_WINDOW = 1 << 20;  // bases searched per batch of streamed hits
+
+    private static final int[] IUPAC_MASKS = new int[128];  // bit per base: A=1 C=2 G=4 T=8
+
+    static {
+        String codes = "ACGTURYSWKMBDHVN";
+        int[] masks = {1, 2, 4, 8, 8, 1 | 4, 2 | 8, 2 | 4, 1 | 8, 4 | 8, 1 | 2, 2 | 4 | 8, 1 | 4 | 8, 1 | 2 | 8, 1 | 2 | 4, 15};
+        for (int i = 0; i < codes.length(); i++) {
+            IUPAC_MASKS[codes.charAt(i)] = masks[i];
+            IUPAC_MASKS[Character.toLowerCase(codes.charAt(i))] = masks[i];
+        }
+    }
+
+    private final String[] motifs;
+    private final int[] motifLengths;
+    private int maxLength;
+
+    // Aho-Corasick automaton over A/C/G/T with a full transition table
+    private int[] delta;
+    private int[] outputHead;  // first output entry per state, -1 if none
+    private int[] dictLink;    // nearest suffix state that has outputs, 0 if none
+    private int[] outputNext;
+    private int[] outputMotif;
+    private int outputs;
+    private int states;
+
+    // Bit-parallel Shift-And over the degenerate motifs, all packed into one multi-word bit vector
+    private final ShiftAnd shiftAnd;
+
+    MotifSearcher(List<String> motifs) {
+        if (motifs.isEmpty()) {
+            throw new IllegalArgumentException("At least one motif is required");
+        }
+        this.motifs = motifs.toArray(new String[0]);
+        this.motifLengths = new int[this.motifs.length];
+        delta = new int[64 * 4];
+        Arrays.fill(delta, -1);
+        outputHead = new int[64];
+        Arrays.fill(outputHead, -1);
+        outputNext = new int[16];
+        outputMotif = new int[16];
+        states = 1;
+
+        List<Integer> degenerate = new ArrayList<>();
+        for (int id = 0; id < this.motifs.length; id++) {
+            String motif = this.motifs[id];
+            int[] masks = masksOf(motif);
+            motifLengths[id] = masks.length;
+            maxLength = Math.max(maxLength, masks.length);
+            if (expansionCount(masks) <= MAX_EXPANSION) {
+                insert(id, masks);
+            } else {
+                degenerate.add(id);
+            }
+        }
+        buildLinks();
+        shiftAnd = degenerate.isEmpty() ? null : new ShiftAnd(degenerate);
+    }
+
+    int motifCount() {
+        return motifs.length;
+    }
+
+    String motif(int id) {
+        return motifs[id];
+    }
+
+    int motifLength(int id) {
+        return motifLengths[id];
+    }
+
+    // Scans codes (see Sequence.toCodes) once. N and invalid bases never match a motif position.
+    // Automaton hits come first in order of their last base, then the bit-parallel hits.
+    Hits search(byte[] codes) {
+        return search(codes, AnalysisMonitor.NONE);
+    }
+
+    Hits search(byte[] codes, AnalysisMonitor monitor) {
+        Hits hits = new Hits();
+        Hits degenerateHits = new Hits();
+        search(codes, 0, codes.length, hits, degenerateHits, monitor);
+        hits.addAll(degenerateHits);
+        return hits;
+    }
+
+    // Streams the hits to the sink as (start, end, motif id, 0), one window of STREAM_WINDOW bases
+    // at a time, so memory is bounded by the hits of one window however many there are in total
+    void search(byte[] codes, HitSink sink, AnalysisMonitor monitor) {
+        Hits hits = new Hits();
+        Hits degenerateHits = new Hits();
+        for (int from = 0; from < codes.length; from += STREAM_WINDOW) {
+            monitor.checkpoint(from, codes.length);
+            search(codes, from, (int) Math.min(codes.length, (long) from + STREAM_WINDOW), hits, degenerateHits);
+            hits.addAll(degenerateHits);
+            for (int i = 0; i < hits.size(); i++) {
+                int id = hits.motif(i);
+                sink.hit(hits.start(i), hits.start(i) + motifLengths[id], id, 0);
+            }
+            hits.clear();
+            degenerateHits.clear();
+        }
+    }
+
+    // The same over a view: each window is decoded into one reused buffer, together with the
+    // maxLength - 1 bases before it, so the view is never copied as a whole
+    void search(SequenceView view, HitSink sink, AnalysisMonitor monitor) {
+        int length = view.length();
+        byte[] buffer = new byte[Math.min(length, STREAM_WINDOW + maxLength - 1)];
+        Hits hits = new Hits();
+        Hits degenerateHits = new Hits();
+        for (int from = 0; from < length; from += STREAM_WINDOW) {
+            monitor.checkpoint(from, length);
+            int to = (int) Math.min(length, (long) from + STREAM_WINDOW);
+            int scanFrom = Math.max(0, from - maxLength + 1);
+            view.codes(scanFrom, to, buffer, 0);
+            search(buffer, from - scanFrom, to - scanFrom, hits, degenerateHits);
+            hits.addAll(degenerateHits);
+            for (int i = 0; i < hits.size(); i++) {
+                int id = hits.motif(i);
+                int start = scanFrom + hits.start(i);
+                sink.hit(start, start + motifLengths[id], id, 0);
+            }
+            hits.clear();
+            degenerateHits.clear();
+        }
+    }
+
+    // Reports the hits whose last base lies in [from, to). Scanning starts maxLength - 1 bases
+    // early, which is enough for both matchers to reach the same state as a scan from position 0,
+    // so adjacent ranges together give exactly the hits of a full scan.
+    void search(byte[] codes, int from, int to, Hits hits, Hits degenerateHits) {
+        search(codes, from, to, hits, degenerateHits, AnalysisMonitor.NONE);
+    }
+
+    void search(byte[] codes, int from, int to, Hits hits, Hits degenerateHits, AnalysisMonitor monitor) {
+        int scanFrom = Math.max(0, from - maxLength + 1);
+        int state = 0;
+        for (int i = scanFrom; i < to; i++) {
+            if (((i - scanFrom) & (AnalysisMonitor.CHECK_INTERVAL - 1)) == 0) {
+                monitor.checkpoint(i - scanFrom, to - scanFrom);
+            }
+            int code = codes[i];
+            if (code > PackedSequence.T) {
+                state = 0;
+                continue;
+            }
+            state = delta[(state << 2) + code];
+            if (i < from) {
+                continue;
+            }
+            for (int s = outputHead[state] >= 0 ? state : dictLink[state]; s != 0; s = dictLink[s]) {
+                for (int e = outputHead[s]; e >= 0; e = outputNext[e]) {
+                    int id = outputMotif[e];
+                    hits.add(id, i - motifLengths[id] + 1);
+                }
+            }
+        }
+        if (shiftAnd != null) {
+            shiftAnd.search(codes, scanFrom, from, to, degenerateHits);
+        }
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    static int[] masksOf(String motif) {
+        if (motif.isEmpty()) {
+            throw new IllegalArgumentException("Motif cannot be empty");
+        }
+        int[] masks = new int[motif.length()];
+        for (int i = 0; i < masks.length; i++) {
+            char c = motif.charAt(i);
+            masks[i] = c < 128 ? IUPAC_MASKS[c] : 0;
+            if (masks[i] == 0) {
+                throw new IllegalArgumentException("Invalid IUPAC code '" + c + "' in motif " + motif);
+            }
+        }
+        return masks;
+    }
+
+    private static long expansionCount(int[] masks) {
+        long count = 1;
+        for (int mask : masks) {
+            count *= Integer.bitCount(mask);
+            if (count > MAX_EXPANSION) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    // Inserts every concrete expansion of the motif by advancing a frontier of trie states
+    private void insert(int id, int[] masks) {
+        int[] frontier = {0};
+        for (int mask : masks) {
+            int[] nextFrontier = new int[frontier.length * Integer.bitCount(mask)];
+            int size = 0;
+            for (int state : frontier) {
+                for (int base = 0; base < 4; base++) {
+                    if ((mask & (1 << base)) != 0) {
+                        nextFrontier[size++] = child(state, base);
+                    }
+                }
+            }
+            frontier = nextFrontier;
+        }
+        for (int state : frontier) {
+            if (outputs == outputNext.length) {
+                outputNext = Arrays.copyOf(outputNext, outputs * 2);
+                outputMotif = Arrays.copyOf(outputMotif, outputs * 2);
+            }
+            outputMotif[outputs] = id;
+            outputNext[outputs] = outputHead[state];
+            outputHead[state] = outputs++;
+        }
+    }
+
+    private int child(int state, int base) {
+        int slot = (state << 2) + base;
+        if (delta[slot] < 0) {
+            if (states == outputHead.length) {
+                delta = Arrays.copyOf(delta, states * 8);
+                Arrays.fill(delta, states * 4, states * 8, -1);
+                outputHead = Arrays.copyOf(outputHead, states * 2);
+                Arrays.fill(outputHead, states, states * 2, -1);
+            }
+            delta[slot] = states++;
+        }
+        return delta[slot];
+    }
+
+    // Breadth-first pass that fills in failure transitions so delta becomes a complete DFA
+    private void buildLinks() {
+        int[] fail = new int[states];
+        dictLink = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int base = 0; base < 4; base++) {
+            int next = delta[base];
+            if (next < 0) {
+                delta[base] = 0;
+            } else {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failState = fail[state];
+            dictLink[state] = outputHead[failState] >= 0 ? failState : dictLink[failState];
+            for (int base = 0; base < 4; base++) {
+                int slot = (state << 2) + base;
+                int next = delta[slot];
+                int viaFail = delta[(failState << 2) + base];
+                if (next < 0) {
+                    delta[slot] = viaFail;
+                } else {
+                    fail[next] = viaFail;
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    // Shift-And where each motif owns a run of bits; a state bit survives when the current base is
+    // allowed at that motif position. Cost per base grows with the total degenerate motif length.
+    private final class ShiftAnd {
+        private final long[][] baseMasks = new long[4][];
+        private final long[] startBits;
+        private final long[] endBits;
+        private final int[] motifAtBit;
+
+        ShiftAnd(List<Integer> ids) {
+            int totalBits = 0;
+            for (int id : ids) {
+                totalBits += motifLengths[id];
+            }
+            int words = (totalBits + 63) >>> 6;
+            for (int base = 0; base < 4; base++) {
+                baseMasks[base] = new long[words];
+            }
+            startBits = new long[words];
+            endBits = new long[words];
+            motifAtBit = new int[totalBits];
+            int bit = 0;
+            for (int id : ids) {
+                int[] masks = masksOf(motifs[id]);
+                setBit(startBits, bit);
+                for (int mask : masks) {
+                    for (int base = 0; base < 4; base++) {
+                        if ((mask & (1 << base)) != 0) {
+                            setBit(baseMasks[base], bit);
+                        }
+                    }
+                    motifAtBit[bit++] = id;
+                }
+                setBit(endBits, bit - 1);
+            }
+        }
+
+        void search(byte[] codes, int scanFrom, int from, int to, Hits hits) {
+            long[] state = new long[startBits.length];
+            for (int i = scanFrom; i < to; i++) {
+                int code = codes[i];
+                if (code > PackedSequence.T) {
+                    Arrays.fill(state, 0L);
+                    continue;
+                }
+                long[] allowed = baseMasks[code];
+                long carry = 0;
+                for (int w = 0; w < state.length; w++) {
+                    long shifted = (state[w] << 1) | carry;
+                    carry = state[w] >>> 63;
+                    state[w] = (shifted | startBits[w]) & allowed[w];
+                    long matched = i >= from ? state[w] & endBits[w] : 0;
+                    while (matched != 0) {
+                        int id = motifAtBit[(w << 6) + Long.numberOfTrailingZeros(matched)];
+                        hits.add(id, i - motifLengths[id] + 1);
+                        matched &= matched - 1;
+                    }
+                }
+            }
+        }
+
+        private void setBit(long[] words, int bit) {
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // Growable (motif id, 0-based start) list in scan order
+    static final class Hits {
+        private int[] motifIds = new int[16];
+        private int[] starts = new int[16];
+        private int size;
+
+        void add(int motifId, int start) {
+            if (size == starts.length) {
+                motifIds = Arrays.copyOf(motifIds, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+            }
+            motifIds[size] = motifId;
+            starts[size++] = start;
+        }
+
+        void addAll(Hits other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.motifIds[i], other.starts[i]);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int motif(int index) {
+            return motifIds[index];
+        }
+
+        int start(int index) {
+            return starts[index];
+        }
+
+        // 0-based starts of one motif in ascending order
+        int[] startsOf(int motifId) {
+            int count = 0;
+            int[] out = new int[size];
+            for (int i = 0; i < size; i++) {
+                if (motifIds[i] == motifId) {
+                    out[count++] = starts[i];
+                }
+            }
+            out = Arrays.copyOf(out, count);
+            Arrays.sort(out);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+import java.util.Arrays;
+
+// Packed Nucleotide Storage - 2 bits per A/C/G/T(U) base in a long[], N runs kept on the side
+final class PackedSequence {
+    static final int A = 0, C = 1, G = 2, T = 3, N = 4, INVALID = 5;
+    static final int BASES_PER_WORD = 32;
+
+    private static final long LOW_BITS = 0x5555555555555555L;
+    private static final char[] DNA_CHARS = {'A', 'C', 'G', 'T'};
+    private static final char[] RNA_CHARS = {'A', 'C', 'G', 'U'};
+    private static final byte[] CODES = new byte[128];
+
+    static {
+        Arrays.fill(CODES, (byte) INVALID);
+        String upper = "ACGTUN";
+        byte[] codes = {A, C, G, T, T, N};
+        for (int i = 0; i < upper.length(); i++) {
+            CODES[upper.charAt(i)] = codes[i];
+            CODES[Character.toLowerCase(upper.charAt(i))] = codes[i];
+        }
+    }
+
+    private final long[] words;   // base i lives in words[i >>> 5] at bit (i & 31) * 2
+    private final int length;
+    private final int[] nStarts;  // sorted, non-overlapping runs of N; N bases are stored as code 0
+    private final int[] nLengths;
+    private final boolean rna;    // only changes how T/U is printed, the bits are shared
+
+    private PackedSequence(long[] words, int length, int[] nStarts, int[] nLengths, boolean rna) {
+        this.words = words;
+        this.length = length;
+        this.nStarts = nStarts;
+        this.nLengths = nLengths;
+        this.rna = rna;
+    }
+
+    // Returns the 2-bit code for a base, N for ambiguous bases or INVALID for anything else
+    static int codeOf(char c) {
+        return c < 128 ? CODES[c] : INVALID;
+    }
+
+    // IUPAC ambiguity codes other than N (RYSWKMBDHV) in either case, which readers store as N
+    static boolean isAmbiguityCode(char c) {
+        return c < 128 && "RYSWKMBDHV".indexOf(Character.toUpperCase(c)) >= 0;
+    }
+
+    static PackedSequence encode(CharSequence bases, boolean rna) {
+        Builder builder = new Builder(rna, bases.length());
+        builder.append(bases);
+        return builder.build();
+    }
+
+    int length() {
+        return length;
+    }
+
+    boolean isRNA() {
+        return rna;
+    }
+
+    // Transcription is a flag flip: the same words are reused with the other alphabet
+    PackedSequence asRNA() {
+        return rna ? this : new PackedSequence(words, length, nStarts, nLengths, true);
+    }
+
+    PackedSequence asDNA() {
+        return rna ? new PackedSequence(words, length, nStarts, nLengths, false) : this;
+    }
+
+    int ambiguousCount() {
+        int total = 0;
+        for (int len : nLengths) {
+            total += len;
+        }
+        return total;
+    }
+
+    boolean isAmbiguous(int index) {
+        int run = Arrays.binarySearch(nStarts, index);
+        if (run >= 0) {
+            return true;
+        }
+        run = -run - 2;  // run starting before index, if any
+        return run >= 0 && index < nStarts[run] + nLengths[run];
+    }
+
+    // 2-bit code of the base at index, or N
+    int codeAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range for length " + length);
+        }
+        if (nStarts.length > 0 && isAmbiguous(index)) {
+            return N;
+        }
+        return rawCode(index);
+    }
+
+    // 2-bit code without the N lookup; N positions read as A
+    int rawCode(int index) {
+        return (int) (words[index >>> 5] >>> ((index & 31) << 1)) & 3;
+    }
+
+    char charAt(int index) {
+        int code = codeAt(index);
+        return code == N ? 'N' : (rna ? RNA_CHARS : DNA_CHARS)[code];
+    }
+
+    // Copies the base range [from, to) into a new packed sequence
+    PackedSequence slice(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of range for length " + length);
+        }
+        int n = to - from;
+        long[] out = new long[wordCount(n)];
+        int shift = (from & 31) << 1;
+        int first = from >>> 5;
+        for (int k = 0; k < out.length; k++) {
+            long w = words[first + k] >>> shift;
+            if (shift != 0 && first + k + 1 < words.length) {
+                w |= words[first + k + 1] << (64 - shift);
+            }
+            out[k] = w;
+        }
+        maskTail(out, n);
+        int count = 0;
+        int[] starts = new int[nStarts.length];
+        int[] lengths = new int[nStarts.length];
+        for (int r = 0; r < nStarts.length; r++) {
+            int s = Math.max(nStarts[r], from);
+            int e = Math.min(nStarts[r] + nLengths[r], to);
+            if (s < e) {
+                starts[count] = s - from;
+                lengths[count++] = e - s;
+            }
+        }
+        return new PackedSequence(out, n, Arrays.copyOf(starts, count), Arrays.copyOf(lengths, count), rna);
+    }
+
+    // Takes over words whose first base sits at base skip (< 32) of words[0], as read from a
+    // PackedSequenceFile. N bases must be stored as code 0; the runs are relative to the new start.
+    static PackedSequence fromWords(long[] words, int skip, int length, int[] nStarts, int[] nLengths, boolean rna) {
+        if (skip != 0) {
+            int shift = skip << 1;
+            for (int k = 0; k < words.length; k++) {
+                long w = words[k] >>> shift;
+                if (k + 1 < words.length) {
+                    w |= words[k + 1] << (64 - shift);
+                }
+                words[k] = w;
+            }
+        }
+        long[] out = words.length == wordCount(length) ? words : Arrays.copyOf(words, wordCount(length));
+        if (out.length > 0) {
+            maskTail(out, length);
+        }
+        return new PackedSequence(out, length, nStarts, nLengths, rna);
+    }
+
+    // Complement works on whole words: with A=0 C=1 G=2 T=3 the complement of x is x ^ 3
+    PackedSequence complement() {
+        long[] out = new long[words.length];
+        for (int k = 0; k < words.length; k++) {
+            out[k] = ~words[k];
+        }
+        maskTail(out, length);
+        clearRuns(out, nStarts, nLengths);
+        return new PackedSequence(out, length, nStarts, nLengths, rna);
+    }
+
+    PackedSequence reverseComplement() {
+        int count = words.length;
+        long[] reversed = new long[count];
+        for (int k = 0; k < count; k++) {
+            reversed[k] = reverseBases(~words[count - 1 - k]);
+        }
+        // the last word was padded, so the reversed bases start pad positions in
+        int pad = count * BASES_PER_WORD - length;
+        if (pad > 0) {
+            int shift = pad << 1;
+            for (int k = 0; k < count; k++) {
+                long w = reversed[k] >>> shift;
+                if (k + 1 < count) {
+                    w |= reversed[k + 1] << (64 - shift);
+                }
+                reversed[k] = w;
+            }
+        }
+        maskTail(reversed, length);
+        int runs = nStarts.length;
+        int[] starts = new int[runs];
+        int[] lengths = new int[runs];
+        for (int r = 0; r < runs; r++) {
+            starts[runs - 1 - r] = length - (nStarts[r] + nLengths[r]);
+            lengths[runs - 1 - r] = nLengths[r];
+        }
+        clearRuns(reversed, starts, lengths);
+        return new PackedSequence(reversed, length, starts, lengths, rna);
+    }
+
+    // A C is 01 and a G is 10, so a base is G/C exactly when its two bits differ
+    long gcCount() {
+        long gc = 0;
+        for (long w : words) {
+            gc += Long.bitCount((w ^ (w >>> 1)) & LOW_BITS);
+        }
+        return gc;
+    }
+
+    // Returns counts indexed by code: A, C, G, T(U), N
+    long[] counts() {
+        long[] cgt = countWords(0, words.length);
+        long n = ambiguousCount();
+        return new long[]{length - cgt[0] - cgt[1] - cgt[2] - n, cgt[0], cgt[1], cgt[2], n};
+    }
+
+    // C, G and T counts over words [fromWord, toWord); A and N are derived from the length
+    long[] countWords(int fromWord, int toWord) {
+        long c = 0, g = 0, t = 0;
+        for (int k = fromWord; k < toWord; k++) {
+            long w = words[k];
+            long lo = w & LOW_BITS;
+            long hi = (w >>> 1) & LOW_BITS;
+            t += Long.bitCount(lo & hi);
+            g += Long.bitCount(hi & ~lo);
+            c += Long.bitCount(lo & ~hi);
+        }
+        return new long[]{c, g, t};
+    }
+
+    // One byte per base (A=0 C=1 G=2 T=3 N=4), the layout the scanning engines work on
+    byte[] toCodes() {
+        byte[] codes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            codes[i] = (byte) rawCode(i);
+        }
+        for (int r = 0; r < nStarts.length; r++) {
+            Arrays.fill(codes, nStarts[r], nStarts[r] + nLengths[r], (byte) N);
+        }
+        return codes;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    int[] ambiguousStarts() {
+        return nStarts;
+    }
+
+    int[] ambiguousLengths() {
+        return nLengths;
+    }
+
+    // Approximate heap footprint of the packed data, useful when comparing to the String form
+    long sizeInBytes() {
+        return 8L * words.length + 4L * (nStarts.length + nLengths.length);
+    }
+
+    @Override
+    public String toString() {
+        char[] alphabet = rna ? RNA_CHARS : DNA_CHARS;
+        char[] out = new char[length];
+        for (int i = 0; i < length; i++) {
+            out[i] = alphabet[rawCode(i)];
+        }
+        for (int r = 0; r < nStarts.length; r++) {
+            Arrays.fill(out, nStarts[r], nStarts[r] + nLengths[r], 'N');
+        }
+        return new String(out);
+    }
+
+    static int wordCount(int bases) {
+        return (bases + BASES_PER_WORD - 1) / BASES_PER_WORD;
+    }
+
+    // Reverses the order of the 32 two-bit groups in a word
+    static long reverseBases(long w) {
+        w = ((w >>> 2) & 0x3333333333333333L) | ((w & 0x3333333333333333L) << 2);
+        w = ((w >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((w & 0x0F0F0F0F0F0F0F0FL) << 4);
+        return Long.reverseBytes(w);
+    }
+
+    // Zeroes the bits past the last base so the word kernels can ignore the tail
+    private static void maskTail(long[] words, int length) {
+        int used = length & 31;
+        if (used != 0) {
+            words[words.length - 1] &= (1L << (used << 1)) - 1;
+        }
+    }
+
+    private static void clearRuns(long[] words, int[] starts, int[] lengths) {
+        for (int r = 0; r < starts.length; r++) {
+            for (int i = starts[r], end = starts[r] + lengths[r]; i < end; i++) {
+                words[i >>> 5] &= ~(3L << ((i & 31) << 1));
+            }
+        }
+    }
+
+    // Incremental builder, so readers can append bases chunk by chunk without a String
+    static final class Builder {
+        private final boolean rna;
+        private long[] words;
+        private int length;
+        private int[] nStarts = new int[4];
+        private int[] nLengths = new int[4];
+        private int runs;
+
+        Builder(boolean rna) {
+            this(rna, 1024);
+        }
+
+        Builder(boolean rna, int expectedLength) {
+            this.rna = rna;
+            this.words = new long[Math.max(1, wordCount(expectedLength))];
+        }
+
+        int length() {
+            return length;
+        }
+
+        Builder append(char base) {
+            int code = codeOf(base);
+            if (code == INVALID) {
+                throw new IllegalArgumentException("Invalid base '" + base + "' at offset " + length);
+            }
+            appendCode(code);
+            return this;
+        }
+
+        Builder append(CharSequence bases) {
+            for (int i = 0; i < bases.length(); i++) {
+                append(bases.charAt(i));
+            }
+            return this;
+        }
+
+        Builder append(byte[] bases, int offset, int count) {
+            for (int i = offset, end = offset + count; i < end; i++) {
+                append((char) (bases[i] & 0xFF));
+            }
+            return this;
+        }
+
+        Builder appendCode(int code) {
+            if ((length >>> 5) == words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            if (code == N) {
+                if (runs > 0 && nStarts[runs - 1] + nLengths[runs - 1] == length) {
+                    nLengths[runs - 1]++;
+                } else {
+                    if (runs == nStarts.length) {
+                        nStarts = Arrays.copyOf(nStarts, runs * 2);
+                        nLengths = Arrays.copyOf(nLengths, runs * 2);
+                    }
+                    nStarts[runs] = length;
+                    nLengths[runs++] = 1;
+                }
+            } else {
+                words[length >>> 5] |= (long) code << ((length & 31) << 1);
+            }
+            length++;
+            return this;
+        }
+
+        PackedSequence build() {
+            return new PackedSequence(Arrays.copyOf(words, wordCount(length)), length,
+                    Arrays.copyOf(nStarts, runs), Arrays.copyOf(nLengths, runs), rna);
+        }
+    }
+}
@@ -0,0 +1,410 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Packed Sequence File - binary container for reference sequences in the style of UCSC .2bit.
+// Every record keeps its N runs and soft-masked (lower case) runs as block lists and its bases as
+// the 2-bit words of PackedSequence, so a region read maps the record once and copies only the
+// words under the region. All numbers are little-endian.
+//
+//   header   int magic, int version, long index offset, int record count, int reserved
+//   record   int length, int N runs, int mask runs, int reserved,
+//            int[] N starts, int[] N lengths, int[] mask starts, int[] mask lengths, long[] words
+//            (every record starts and its words stay 8-byte aligned)
+//   index    per record: unsigned short name length, UTF-8 name, long record offset
+//
+//   java PackedSequenceFile pack genome.fa genome.gpk
+//   java PackedSequenceFile fetch genome.gpk chr1:1000000-1010000
+final class PackedSequenceFile {
+    static final int MAGIC = 0x4B504147;  // "GAPK" in file order
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private PackedSequenceFile() {
+    }
+
+    static boolean isPackedFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(magic, 0) == 4 && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    // Packs every FASTA/FASTQ record; IUPAC ambiguity codes become N, lower case is masked
+    static void pack(Path input, Path output, AnalysisMonitor monitor) throws IOException {
+        try (Writer writer = new Writer(output)) {
+            SequenceReader.read(input, new SequenceReader.RecordHandler() {
+                private String name;
+                private RecordPacker packer;
+
+                @Override
+                public void beginRecord(String header) {
+                    name = SequenceReader.recordName(header);
+                    packer = new RecordPacker();
+                }
+
+                @Override
+                public void sequence(ByteBuffer buffer, int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        packer.append((char) (buffer.get(i) & 0xFF));
+                    }
+                }
+
+                @Override
+                public void endRecord() {
+                    try {
+                        packer.writeTo(writer, name);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    packer = null;
+                }
+            }, monitor);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    // Bases plus lower case runs of one record as it streams in
+    private static final class RecordPacker {
+        private final PackedSequence.Builder builder = new PackedSequence.Builder(false);
+        private int[] maskStarts = new int[4];
+        private int[] maskLengths = new int[4];
+        private int maskRuns;
+
+        void append(char c) {
+            int position = builder.length();
+            int code = PackedSequence.codeOf(c);
+            if (code == PackedSequence.INVALID) {
+                if (!PackedSequence.isAmbiguityCode(c)) {
+                    throw new IllegalArgumentException("Invalid base '" + c + "' at offset " + position);
+                }
+                code = PackedSequence.N;
+            }
+            builder.appendCode(code);
+            if (Character.isLowerCase(c)) {
+                if (maskRuns > 0 && maskStarts[maskRuns - 1] + maskLengths[maskRuns - 1] == position) {
+                    maskLengths[maskRuns - 1]++;
+                } else {
+                    if (maskRuns == maskStarts.length) {
+                        maskStarts = Arrays.copyOf(maskStarts, maskRuns * 2);
+                        maskLengths = Arrays.copyOf(maskLengths, maskRuns * 2);
+                    }
+                    maskStarts[maskRuns] = position;
+                    maskLengths[maskRuns++] = 1;
+                }
+            }
+        }
+
+        void writeTo(Writer writer, String name) throws IOException {
+            writer.add(name, builder.build(), Arrays.copyOf(maskStarts, maskRuns), Arrays.copyOf(maskLengths, maskRuns));
+        }
+    }
+
+    // Appends records one at a time; the index is written by close
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final Map<String, Long> offsets = new LinkedHashMap<>();
+        private long position = HEADER_SIZE;
+
+        Writer(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            channel.position(HEADER_SIZE);
+        }
+
+        // Lower case bases are recorded as masked
+        void add(String name, CharSequence bases) throws IOException {
+            RecordPacker packer = new RecordPacker();
+            for (int i = 0; i < bases.length(); i++) {
+                packer.append(bases.charAt(i));
+            }
+            packer.writeTo(this, name);
+        }
+
+        void add(String name, PackedSequence packed) throws IOException {
+            add(name, packed, new int[0], new int[0]);
+        }
+
+        void add(String name, PackedSequence packed, int[] maskStarts, int[] maskLengths) throws IOException {
+            if (name.getBytes(StandardCharsets.UTF_8).length > 0xFFFF) {
+                throw new IllegalArgumentException("Record name is too long: " + name.substring(0, 40) + "...");
+            }
+            if (offsets.putIfAbsent(name, position) != null) {
+                throw new IllegalArgumentException("Duplicate record name " + name);
+            }
+            int[] nStarts = packed.ambiguousStarts();
+            int[] nLengths = packed.ambiguousLengths();
+            ensure(16);
+            buffer.putInt(packed.length()).putInt(nStarts.length).putInt(maskStarts.length).putInt(0);
+            for (int[] values : new int[][]{nStarts, nLengths, maskStarts, maskLengths}) {
+                for (int value : values) {
+                    ensure(4);
+                    buffer.putInt(value);
+                }
+            }
+            long[] words = packed.words();
+            for (int k = 0, count = PackedSequence.wordCount(packed.length()); k < count; k++) {
+                ensure(8);
+                buffer.putLong(words[k]);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            position += bytes;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                long indexOffset = position;
+                for (Map.Entry<String, Long> record : offsets.entrySet()) {
+                    byte[] name = record.getKey().getBytes(StandardCharsets.UTF_8);
+                    ensure(2);
+                    buffer.putShort((short) name.length);
+                    for (byte b : name) {
+                        ensure(1);
+                        buffer.put(b);
+                    }
+                    ensure(8);
+                    buffer.putLong(record.getValue());
+                }
+                flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(indexOffset).putInt(offsets.size()).putInt(0).flip();
+                channel.write(header, 0);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Reads the index at open; each record's block lists and words are mapped on first use and
+    // shared by all threads, so region reads after that touch only the pages of the region
+    static final class Reader implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final Map<String, Record> records = new LinkedHashMap<>();
+
+        private static final class Record {
+            final long offset;
+            volatile int length = -1;
+            int[] nStarts, nLengths, maskStarts, maskLengths;
+            LongBuffer words;
+
+            Record(long offset) {
+                this.offset = offset;
+            }
+        }
+
+        Reader(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < HEADER_SIZE) {
+                    throw new IOException(path + " is not a packed sequence file");
+                }
+                ByteBuffer header = map(0, HEADER_SIZE);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException(path + " is not a packed sequence file (or not version " + VERSION + ")");
+                }
+                long indexOffset = header.getLong(8);
+                int count = header.getInt(16);
+                if (indexOffset < HEADER_SIZE || indexOffset > size) {
+                    throw new IOException(path + " has a damaged index");
+                }
+                ByteBuffer index = map(indexOffset, size - indexOffset);
+                for (int r = 0; r < count; r++) {
+                    byte[] name = new byte[index.getShort() & 0xFFFF];
+                    index.get(name);
+                    records.put(new String(name, StandardCharsets.UTF_8), new Record(index.getLong()));
+                }
+            } catch (IOException | RuntimeException ex) {
+                channel.close();
+                throw ex instanceof IOException ? (IOException) ex : new IOException(path + " has a damaged index", ex);
+            }
+        }
+
+        private ByteBuffer map(long offset, long length) throws IOException {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            return mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        List<String> names() {
+            return Collections.unmodifiableList(new ArrayList<>(records.keySet()));
+        }
+
+        boolean contains(String name) {
+            return records.containsKey(name);
+        }
+
+        int length(String name) throws IOException {
+            return load(name).length;
+        }
+
+        private Record load(String name) throws IOException {
+            Record record = records.get(name);
+            if (record == null) {
+                throw new IllegalArgumentException("No record named " + name + " in " + path);
+            }
+            if (record.length < 0) {
+                synchronized (record) {
+                    if (record.length < 0) {
+                        ByteBuffer counts = map(record.offset, 16);
+                        int length = counts.getInt(0);
+                        int nRuns = counts.getInt(4);
+                        int maskRuns = counts.getInt(8);
+                        long blocks = 8L * (nRuns + maskRuns);
+                        ByteBuffer runs = map(record.offset + 16, blocks);
+                        record.nStarts = ints(runs, nRuns);
+                        record.nLengths = ints(runs, nRuns);
+                        record.maskStarts = ints(runs, maskRuns);
+                        record.maskLengths = ints(runs, maskRuns);
+                        long wordsOffset = record.offset + 16 + blocks;
+                        record.words = map(wordsOffset, 8L * PackedSequence.wordCount(length)).asLongBuffer();
+                        record.length = length;  // publishes the fields above
+                    }
+                }
+            }
+            return record;
+        }
+
+        private static int[] ints(ByteBuffer buffer, int count) {
+            int[] values = new int[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = buffer.getInt();
+            }
+            return values;
+        }
+
+        DNASequence fetch(String name) throws IOException {
+            return fetch(name, 0, length(name));
+        }
+
+        // Bases [from, to) of the record, packed, upper case and with its N runs
+        DNASequence fetch(String name, int from, int to) throws IOException {
+            return new DNASequence(fetchPacked(name, from, to));
+        }
+
+        PackedSequence fetchPacked(String name, int from, int to) throws IOException {
+            Record record = load(name);
+            if (from < 0 || to > record.length || from > to) {
+                throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of range for "
+                        + name + " of length " + record.length);
+            }
+            int length = to - from;
+            int firstWord = from >>> 5;
+            int wordCount = length == 0 ? 0 : ((to - 1) >>> 5) - firstWord + 1;
+            long[] words = new long[wordCount];
+            record.words.get(firstWord, words, 0, wordCount);
+            int[][] runs = clip(record.nStarts, record.nLengths, from, to);
+            return PackedSequence.fromWords(words, from & 31, length, runs[0], runs[1], false);
+        }
+
+        // The region as text with soft-masked bases in lower case, as it was packed
+        String fetchText(String name, int from, int to) throws IOException {
+            char[] text = fetchPacked(name, from, to).toString().toCharArray();
+            Record record = load(name);
+            int[][] mask = clip(record.maskStarts, record.maskLengths, from, to);
+            for (int r = 0; r < mask[0].length; r++) {
+                for (int i = mask[0][r], end = i + mask[1][r]; i < end; i++) {
+                    text[i] = Character.toLowerCase(text[i]);
+                }
+            }
+            return new String(text);
+        }
+
+        // Soft-masked runs inside [from, to) as {starts, lengths} relative to from
+        int[][] maskedRuns(String name, int from, int to) throws IOException {
+            Record record = load(name);
+            return clip(record.maskStarts, record.maskLengths, from, to);
+        }
+
+        // Runs overlapping [from, to), found by binary search and cut to the range
+        private static int[][] clip(int[] starts, int[] lengths, int from, int to) {
+            int first = Arrays.binarySearch(starts, from);
+            first = first >= 0 ? first : Math.max(0, -first - 2);
+            int count = 0;
+            int[] clippedStarts = new int[Math.min(starts.length - first, 16)];
+            int[] clippedLengths = new int[clippedStarts.length];
+            for (int r = first; r < starts.length && starts[r] < to; r++) {
+                int start = Math.max(starts[r], from);
+                int end = Math.min(starts[r] + lengths[r], to);
+                if (start < end) {
+                    if (count == clippedStarts.length) {
+                        clippedStarts = Arrays.copyOf(clippedStarts, Math.max(4, count * 2));
+                        clippedLengths = Arrays.copyOf(clippedLengths, clippedStarts.length);
+                    }
+                    clippedStarts[count] = start - from;
+                    clippedLengths[count++] = end - start;
+                }
+            }
+            return new int[][]{Arrays.copyOf(clippedStarts, count), Arrays.copyOf(clippedLengths, count)};
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("pack")) {
+            long start = System.nanoTime();
+            pack(Paths.get(args[1]), Paths.get(args[2]), AnalysisMonitor.NONE);
+            System.out.printf("Packed %s into %s in %.1f s%n", args[1], args[2], (System.nanoTime() - start) / 1e9);
+        } else if (args.length >= 3 && args[0].equals("fetch")) {
+            try (Reader reader = new Reader(Paths.get(args[1]))) {
+                for (int i = 2; i < args.length; i++) {
+                    String region = args[i];
+                    int colon = region.lastIndexOf(':');
+                    String name = colon < 0 ? region : region.substring(0, colon);
+                    int from = 0;
+                    int to = reader.length(name);
+                    if (colon >= 0) {
+                        String[] range = region.substring(colon + 1).replace(",", "").split("-");
+                        from = Integer.parseInt(range[0]) - 1;  // 1-based inclusive, like samtools
+                        to = Integer.parseInt(range[1]);
+                    }
+                    System.out.println(">" + region);
+                    String text = reader.fetchText(name, from, to);
+                    for (int line = 0; line < text.length(); line += 60) {
+                        System.out.println(text.substring(line, Math.min(text.length(), line + 60)));
+                    }
+                }
+            }
+        } else {
+            System.err.println("usage: java PackedSequenceFile pack <in.fa[.gz]> <out.gpk>");
+            System.err.println("       java PackedSequenceFile fetch <file.gpk> <name>[:<start>-<end>]...");
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+import java.util.Arrays;
+
+// Palindrome Engine - finds reverse-complement palindromes (restriction sites, hairpin stems)
+// and reports them as (start, length) coordinates instead of substrings
+final class PalindromeFinder {
+    private static final int WINDOW_OVERLAP = 4096;
+    static final int STREAM_WINDOW = 1 << 20;  // centres per batch of streamed hits
+
+    private final int minArm;
+    private final int maxArm;
+    private final int maxMismatches;
+    private final int maxGap;
+
+    // minArm/maxArm bound the length of each arm, maxGap allows an unpaired loop between the arms
+    PalindromeFinder(int minArm, int maxArm, int maxMismatches, int maxGap) {
+        if (minArm < 1 || maxArm < minArm) {
+            throw new IllegalArgumentException("Arm length range must satisfy 1 <= minArm <= maxArm");
+        }
+        if (maxMismatches < 0 || maxGap < 0) {
+            throw new IllegalArgumentException("Mismatch and gap tolerance cannot be negative");
+        }
+        this.minArm = minArm;
+        this.maxArm = maxArm;
+        this.maxMismatches = maxMismatches;
+        this.maxGap = maxGap;
+    }
+
+    static PalindromeFinder exact(int minArm) {
+        return new PalindromeFinder(minArm, Integer.MAX_VALUE, 0, 0);
+    }
+
+    // Two codes pair when they are complementary bases; N and invalid bases never pair
+    static boolean pairs(int left, int right) {
+        return left + right == 3 && left < 4 && right < 4;
+    }
+
+    // Manacher's algorithm over complement equality. radii[i] is the longest arm k such that
+    // [i - k, i + k) is its own reverse complement. Only even centres exist, since no base is its
+    // own complement. Runs in O(n).
+    static int[] evenRadii(byte[] codes) {
+        return evenRadii(codes, AnalysisMonitor.NONE);
+    }
+
+    static int[] evenRadii(byte[] codes, AnalysisMonitor monitor) {
+        int[] radii = evenRadii(codes, 0, codes.length, monitor);
+        return Arrays.copyOf(radii, codes.length + 1);
+    }
+
+    // Radii computed inside the window [start, end) only; radii[i - start] is clipped at the window edges
+    static int[] evenRadii(byte[] codes, int start, int end, AnalysisMonitor monitor) {
+        int n = end - start;
+        int[] radii = new int[n];
+        for (int i = 0, l = 0, r = -1; i < n; i++) {
+            if ((i & (AnalysisMonitor.CHECK_INTERVAL - 1)) == 0) {
+                monitor.checkpoint(i, n);
+            }
+            int k = i > r ? 0 : Math.min(radii[l + r - i + 1], r - i + 1);
+            while (i + k < n && i - k - 1 >= 0 && pairs(codes[start + i - k - 1], codes[start + i + k])) {
+                k++;
+            }
+            radii[i] = k;
+            if (i + k - 1 > r) {
+                l = i - k;
+                r = i + k - 1;
+            }
+        }
+        return radii;
+    }
+
+    // Reports one hit per centre: the longest arm (capped at maxArm) that reaches minArm.
+    // Hits are ordered by centre position.
+    Hits find(byte[] codes) {
+        return find(codes, 0, codes.length, AnalysisMonitor.NONE);
+    }
+
+    Hits find(byte[] codes, AnalysisMonitor monitor) {
+        return find(codes, 0, codes.length, monitor);
+    }
+
+    Hits find(byte[] codes, int from, int to) {
+        return find(codes, from, to, AnalysisMonitor.NONE);
+    }
+
+    // Streams the hits to the sink as (start, end, 0, arm), one window of centres at a time; the
+    // windows share their radii, so a long repeat costs one whole-array pass and not one per window
+    void find(byte[] codes, HitSink sink, AnalysisMonitor monitor) {
+        Radii radii = new Radii(codes);
+        for (int from = 0; from < codes.length; from += STREAM_WINDOW) {
+            monitor.checkpoint(from, codes.length);
+            Hits hits = find(codes, from, (int) Math.min(codes.length, (long) from + STREAM_WINDOW), radii, AnalysisMonitor.NONE);
+            for (int i = 0; i < hits.size(); i++) {
+                sink.hit(hits.start(i), hits.start(i) + hits.length(i), 0, hits.arm(i));
+            }
+        }
+    }
+
+    // Hits for the centres in [from, to), so a sequence can be split into independent ranges
+    Hits find(byte[] codes, int from, int to, AnalysisMonitor monitor) {
+        return find(codes, from, to, new Radii(codes), monitor);
+    }
+
+    // The same for one range of a split run; the ranges of one run share radii, see Radii
+    Hits find(byte[] codes, int from, int to, Radii shared, AnalysisMonitor monitor) {
+        from = Math.max(from, 1);
+        return maxMismatches == 0 && maxGap == 0
+                ? findExact(codes, from, to, shared, monitor) : findTolerant(codes, from, to, monitor);
+    }
+
+    // Manacher runs over the range plus an overlap on both sides. A centre whose radius reaches a
+    // window edge inside the array sits in a palindrome longer than the overlap; its radius is read
+    // from the whole-array radii instead, so the result never depends on the split and the work
+    // stays linear even when every centre of a long tandem repeat reaches the edge.
+    private Hits findExact(byte[] codes, int from, int to, Radii shared, AnalysisMonitor monitor) {
+        int n = codes.length;
+        int overlap = Math.min(maxArm, WINDOW_OVERLAP);
+        int start = Math.max(0, from - overlap);
+        int end = (int) Math.min(n, (long) to + overlap);
+        int[] radii = evenRadii(codes, start, end, monitor);
+        int[] full = null;
+        Hits hits = new Hits();
+        for (int i = from; i < to; i++) {
+            int radius = radii[i - start];
+            if (radius < maxArm && (radius == i - start && start > 0 || i + radius == end && end < n)) {
+                if (full == null) {
+                    full = shared.get(monitor);
+                }
+                radius = full[i];
+            }
+            int arm = Math.min(radius, maxArm);
+            if (arm >= minArm) {
+                hits.add(i - arm, 2 * arm, arm);
+            }
+        }
+        return hits;
+    }
+
+    // With mismatches or a loop the mirror trick no longer holds, so each centre is expanded
+    // directly: O(n * (maxGap + 1) * maxArm) in the worst case. An unbounded maxArm makes that
+    // quadratic on long repeats, where every expansion runs to the end of the repeat.
+    private Hits findTolerant(byte[] codes, int from, int to, AnalysisMonitor monitor) {
+        int n = codes.length;
+        Hits hits = new Hits();
+        for (int i = from; i < to; i++) {
+            if (((i - from) & (AnalysisMonitor.CHECK_INTERVAL - 1)) == 0) {
+                monitor.checkpoint(i - from, to - from);
+            }
+            int bestArm = 0;
+            int bestGap = 0;
+            for (int gap = 0; gap <= maxGap && i + gap < n; gap++) {
+                int arm = expand(codes, i - 1, i + gap);
+                if (arm > bestArm) {
+                    bestArm = arm;
+                    bestGap = gap;
+                }
+            }
+            if (bestArm >= minArm) {
+                hits.add(i - bestArm, 2 * bestArm + bestGap, bestArm);
+            }
+        }
+        return hits;
+    }
+
+    // Extends outward from left/right allowing up to maxMismatches unpaired positions. Trailing
+    // mismatches are trimmed so an arm always ends on a paired base.
+    private int expand(byte[] codes, int left, int right) {
+        int mismatches = 0;
+        int arm = 0;
+        int lastPaired = 0;
+        while (arm < maxArm && left - arm >= 0 && right + arm < codes.length) {
+            if (pairs(codes[left - arm], codes[right + arm])) {
+                lastPaired = arm + 1;
+            } else if (++mismatches > maxMismatches) {
+                break;
+            }
+            arm++;
+        }
+        return lastPaired;
+    }
+
+    // Radii over the whole array, computed by the first range that meets a palindrome longer than
+    // the overlap and then shared by every range of the run. Most sequences never need them.
+    static final class Radii {
+        private final byte[] codes;
+        private int[] radii;
+
+        Radii(byte[] codes) {
+            this.codes = codes;
+        }
+
+        synchronized int[] get(AnalysisMonitor monitor) {
+            if (radii == null) {
+                radii = evenRadii(codes, 0, codes.length, monitor);
+            }
+            return radii;
+        }
+    }
+
+    // Growable coordinate list; start is 0-based, length covers both arms and any loop
+    static final class Hits {
+        private int[] starts = new int[16];
+        private int[] lengths = new int[16];
+        private int[] arms = new int[16];
+        private int size;
+
+        void add(int start, int length, int arm) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                arms = Arrays.copyOf(arms, size * 2);
+            }
+            starts[size] = start;
+            lengths[size] = length;
+            arms[size++] = arm;
+        }
+
+        void addAll(Hits other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.starts[i], other.lengths[i], other.arms[i]);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        int start(int index) {
+            return starts[index];
+        }
+
+        int length(int index) {
+            return lengths[index];
+        }
+
+        int arm(int index) {
+            return arms[index];
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+
+// Parallel Analysis - splits a sequence into chunks on a ForkJoinPool and merges the per-chunk
+// results in order, so every result is identical to the sequential path. The GUI uses it for
+// loaded records and GeneAlchemyCLI for records of any file; both only split sequences of at
+// least two chunks, see splits.
+final class ParallelAnalysis {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    ParallelAnalysis() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    ParallelAnalysis(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    // Shorter sequences gain nothing from the split and run sequentially
+    boolean splits(Sequence seq) {
+        return seq.getLength() >= 2L * chunkSize;
+    }
+
+    SequenceStats statistics(Sequence seq) {
+        return statistics(seq, AnalysisMonitor.NONE);
+    }
+
+    // Counts and GC merge by summing; the first invalid offset comes from the leftmost chunk
+    SequenceStats statistics(Sequence seq, AnalysisMonitor monitor) {
+        boolean rna = seq instanceof RNASequence;
+        PackedSequence packed = seq.getPacked();
+        if (packed != null) {
+            long[] words = packed.words();
+            long[] cgt = run(words.length, Math.max(1, chunkSize / PackedSequence.BASES_PER_WORD),
+                    packed::countWords, (left, right) -> new long[]{left[0] + right[0], left[1] + right[1], left[2] + right[2]},
+                    monitor);
+            long n = packed.ambiguousCount();
+            long[] counts = {packed.length() - cgt[0] - cgt[1] - cgt[2] - n, cgt[0], cgt[1], cgt[2], n};
+            return SequenceStats.ofCounts(packed, counts);
+        }
+        String text = seq.getSequence();
+        return run(text.length(), chunkSize, (from, to) -> SequenceStats.of(text, from, to, rna), SequenceStats::merge, monitor);
+    }
+
+    double calculateGCContent(Sequence seq) {
+        return statistics(seq).gcContent();
+    }
+
+    // Each chunk owns the hits that end inside it and rescans maxLength - 1 bases of the previous
+    // chunk, so a hit across a boundary is found exactly once
+    MotifSearcher.Hits findMotifs(Sequence seq, MotifSearcher searcher) {
+        return findMotifs(seq, searcher, AnalysisMonitor.NONE);
+    }
+
+    MotifSearcher.Hits findMotifs(Sequence seq, MotifSearcher searcher, AnalysisMonitor monitor) {
+        byte[] codes = seq.toCodes();
+        MotifSearcher.Hits[] merged = run(codes.length, chunkSize, (from, to) -> {
+            MotifSearcher.Hits[] hits = {new MotifSearcher.Hits(), new MotifSearcher.Hits()};
+            searcher.search(codes, from, to, hits[0], hits[1]);
+            return hits;
+        }, (left, right) -> {
+            left[0].addAll(right[0]);
+            left[1].addAll(right[1]);
+            return left;
+        }, monitor);
+        merged[0].addAll(merged[1]);
+        return merged[0];
+    }
+
+    // Each chunk owns the centres inside it; the finder itself reads across the boundary, and the
+    // chunks share the radii of palindromes too long for one chunk to resolve
+    PalindromeFinder.Hits findPalindromes(Sequence seq, PalindromeFinder finder) {
+        return findPalindromes(seq, finder, AnalysisMonitor.NONE);
+    }
+
+    PalindromeFinder.Hits findPalindromes(Sequence seq, PalindromeFinder finder, AnalysisMonitor monitor) {
+        byte[] codes = seq.toCodes();
+        PalindromeFinder.Radii radii = new PalindromeFinder.Radii(codes);
+        return run(codes.length, chunkSize, (from, to) -> finder.find(codes, from, to, radii, AnalysisMonitor.NONE), (left, right) -> {
+            left.addAll(right);
+            return left;
+        }, monitor);
+    }
+
+    // Each chunk checks the monitor before it starts, with the units of the chunks finished so far
+    // by any worker, so a cancel stops the chunks that have not started yet
+    private <R> R run(int length, int chunk, RangeFunction<R> leaf, BinaryOperator<R> merge, AnalysisMonitor monitor) {
+        AtomicLong done = new AtomicLong();
+        RangeFunction<R> checked = monitor == AnalysisMonitor.NONE ? leaf : (from, to) -> {
+            monitor.checkpoint(done.get(), length);
+            R result = leaf.apply(from, to);
+            done.addAndGet(to - from);
+            return result;
+        };
+        return pool.invoke(new ChunkTask<>(0, length, chunk, checked, merge));
+    }
+
+    interface RangeFunction<R> {
+        R apply(int from, int to);
+    }
+
+    // Halves the range until it fits in one chunk; results are merged left to right
+    private static final class ChunkTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final RangeFunction<R> leaf;
+        private final BinaryOperator<R> merge;
+
+        ChunkTask(int from, int to, int chunk, RangeFunction<R> leaf, BinaryOperator<R> merge) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.leaf = leaf;
+            this.merge = merge;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= chunk) {
+                return leaf.apply(from, to);
+            }
+            int mid = from + (to - from) / 2;
+            ChunkTask<R> right = new ChunkTask<>(mid, to, chunk, leaf, merge);
+            right.fork();
+            R left = new ChunkTask<>(from, mid, chunk, leaf, merge).compute();
+            return merge.apply(left, right.join());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+// Protein Sequence Class
+class ProteinSequence extends Sequence {
+    public ProteinSequence(String sequence) {
+        super(sequence);
+    }
+
+    public ProteinSequence(SequenceView view) {
+        super(view);
+    }
+
+    // Residues [from, to) sharing this sequence's storage
+    public ProteinSequence slice(int from, int to) {
+        return new ProteinSequence(view().slice(from, to));
+    }
+
+    @Override
+    protected int alphabet() {
+        return SequenceValidator.PROTEIN;
+    }
+}
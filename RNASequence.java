@@ -0,0 +1,142 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// RNA Sequence Class - Demonstrates Inheritance and Polymorphism
+class RNASequence extends Sequence {
+    private static final Metrics.Operation GC_CONTENT = Metrics.operation("RNASequence.calculateGCContent");
+    private static final Metrics.Operation STATISTICS = Metrics.operation("RNASequence.statistics");
+    private static final Metrics.Operation TRANSLATE = Metrics.operation("RNASequence.transcribeToProtein");
+    private static final Metrics.Operation PALINDROME = Metrics.operation("RNASequence.findPalindrome");
+    private static final Metrics.Operation PALINDROMES = Metrics.operation("RNASequence.findPalindromes");
+    private static final Metrics.Operation MOTIF = Metrics.operation("RNASequence.findMotif");
+    private static final Metrics.Operation MOTIFS = Metrics.operation("RNASequence.findMotifs");
+    private static final Metrics.Operation COUNT = Metrics.operation("RNASequence.countNucleotides");
+    private static final Metrics.Operation KMERS = Metrics.operation("RNASequence.countKmers");
+
+    public RNASequence(String sequence) {
+        super(sequence);
+    }
+
+    public RNASequence(PackedSequence packed) {
+        super(packed.asRNA());
+    }
+
+    public RNASequence(SequenceView view) {
+        super(view);
+    }
+
+    // Bases [from, to) sharing this sequence's storage
+    public RNASequence slice(int from, int to) {
+        return new RNASequence(view().slice(from, to));
+    }
+
+    // The reverse complement strand as a view, no copy
+    public RNASequence reverseStrand() {
+        return new RNASequence(view().reverseComplement());
+    }
+
+    // Counts of every k-mer, canonical ones merge each k-mer with its reverse complement
+    public KmerCounter.Counts countKmers(int k, boolean canonical) {
+        return KMERS.time(getLength(), () -> new KmerCounter(k, canonical).count(this));
+    }
+
+    @Override
+    protected int alphabet() {
+        return SequenceValidator.RNA;
+    }
+
+    public double calculateGCContent() {
+        return GC_CONTENT.time(getLength(), () -> {
+            if (packed != null) {
+                return (packed.gcCount() / (double) packed.length()) * 100;
+            }
+            return computeStatistics(true, AnalysisMonitor.NONE).gcContent();
+        });
+    }
+
+    public SequenceStats statistics() {
+        return statistics(AnalysisMonitor.NONE);
+    }
+
+    public SequenceStats statistics(AnalysisMonitor monitor) {
+        return STATISTICS.time(getLength(), () -> computeStatistics(true, monitor));
+    }
+
+    public ProteinSequence transcribeToProtein() {
+        return transcribeToProtein(GeneticCode.STANDARD);
+    }
+
+    // Translates codon by codon through the table's 64-entry lookup until the first stop codon
+    public ProteinSequence transcribeToProtein(GeneticCode code) {
+        return transcribeToProtein(code, AnalysisMonitor.NONE);
+    }
+
+    public ProteinSequence transcribeToProtein(GeneticCode code, AnalysisMonitor monitor) {
+        return TRANSLATE.time(getLength(), () -> Translator.toProtein(new Translator(code).translate(toCodes(), monitor)));
+    }
+    public List<String> findPalindrome() {
+        return findPalindrome(AnalysisMonitor.NONE);
+    }
+
+    public List<String> findPalindrome(AnalysisMonitor monitor) {
+        return PALINDROME.time(getLength(), () -> palindromeSubstrings(monitor));
+    }
+
+    // Streams the palindromes of findPalindrome as (start, end, 0, arm), however many there are
+    public void findPalindrome(HitSink sink, AnalysisMonitor monitor) {
+        PALINDROME.time(getLength(), () -> {
+            palindromeHits(sink, monitor);
+            return null;
+        });
+    }
+
+    // Reverse-complement palindromes as coordinates, see PalindromeFinder for the options
+    public PalindromeFinder.Hits findPalindromes(int minArm, int maxArm, int maxMismatches, int maxGap) {
+        return PALINDROMES.time(getLength(), () -> new PalindromeFinder(minArm, maxArm, maxMismatches, maxGap).find(toCodes()));
+    }
+public List<Integer> findMotif(String motif) {
+    return asList(MOTIF.time(getLength(), () -> motifPositions(motif))); // 1-based indexing
+}
+    // Searches a whole motif set (IUPAC codes allowed) in one pass, see MotifSearcher
+    public MotifSearcher.Hits findMotifs(List<String> motifs) {
+        return findMotifs(new MotifSearcher(motifs));
+    }
+
+    public MotifSearcher.Hits findMotifs(MotifSearcher searcher) {
+        return findMotifs(searcher, AnalysisMonitor.NONE);
+    }
+
+    public MotifSearcher.Hits findMotifs(MotifSearcher searcher, AnalysisMonitor monitor) {
+        return MOTIFS.time(getLength(), () -> searcher.search(toCodes(), monitor));
+    }
+
+    // Streams the hits as (start, end, motif id, 0) instead of collecting them
+    public void findMotifs(MotifSearcher searcher, HitSink sink, AnalysisMonitor monitor) {
+        MOTIFS.time(getLength(), () -> {
+            motifHits(searcher, sink, monitor);
+            return null;
+        });
+    }
+public Map<Character, Integer> countNucleotides() {
+    return COUNT.time(getLength(), () -> {
+        if (packed != null) {
+            return packedCounts(packed, 'U');
+        }
+        SequenceStats stats = computeStatistics(true, AnalysisMonitor.NONE);
+        if (stats.invalidCount() == 0) {
+            return statsCounts(stats, 'U');
+        }
+        Map<Character, Integer> counts = new HashMap<>();  // keep per-character counts for unexpected input
+        counts.put('A', 0);
+        counts.put('U', 0);
+        counts.put('C', 0);
+        counts.put('G', 0);
+        for (char c : getSequence().toCharArray()) {
+            counts.put(c, counts.getOrDefault(c, 0) + 1);
+        }
+        return counts;
+    });
+}
+
+}
@@ -0,0 +1,302 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Result Cache - analysis results keyed by the SHA-256 of the sequence content plus the operation
+// and its parameters. The memory tier is an LRU bounded by the estimated size of the results;
+// the optional disk tier keeps serialized results across runs and is trimmed oldest first. The
+// directory is listed once, on first use; after that the disk tier's sizes are kept in memory, so
+// a write only deletes files when it takes the total over the limit. Disk failures never fail an
+// analysis, they are counted in diskErrors.
+//
+//   -Dgenealchemy.cache.memoryMB=64 -Dgenealchemy.cache.dir=/path/to/cache -Dgenealchemy.cache.diskMB=1024
+final class ResultCache {
+    static final ResultCache SHARED = new ResultCache(
+            Long.getLong("genealchemy.cache.memoryMB", 64) << 20,
+            System.getProperty("genealchemy.cache.dir") != null ? Paths.get(System.getProperty("genealchemy.cache.dir")) : null,
+            Long.getLong("genealchemy.cache.diskMB", 1024) << 20);
+
+    private final long maxWeight;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private final Object diskLock = new Object();
+    private LinkedHashMap<String, Long> diskEntries;  // file sizes, oldest first; null until listed
+    private long diskBytes;
+    private long diskErrors;
+    private IOException lastDiskError;
+
+    private static final class Entry {
+        final Serializable value;
+        final long weight;
+
+        Entry(Serializable value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    // directory may be null for a memory-only cache
+    ResultCache(long maxWeight, Path directory, long maxDiskBytes) {
+        this.maxWeight = maxWeight;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    // Key of one operation on one sequence; the sequence digest is computed once per Sequence
+    static String key(Sequence sequence, String operation, String parameters) {
+        MessageDigest digest = sha256();
+        digest.update(sequence.contentDigest());
+        digest.update((sequence.getClass().getSimpleName() + '\0' + operation + '\0' + parameters).getBytes(StandardCharsets.UTF_8));
+        return hex(digest.digest());
+    }
+
+    // Cached result, or the computed one, which is then stored in both tiers. Failed or cancelled
+    // computations store nothing.
+    <V extends Serializable> V computeIfAbsent(String key, Callable<V> computation) throws Exception {
+        Serializable cached = get(key);
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            V value = (V) cached;
+            return value;
+        }
+        V value = computation.call();
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    Serializable get(String key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.value;
+            }
+        }
+        Serializable value = readDisk(key);
+        synchronized (this) {
+            if (value != null) {
+                hits++;
+                insert(key, value);
+            } else {
+                misses++;
+            }
+        }
+        return value;
+    }
+
+    void put(String key, Serializable value) {
+        synchronized (this) {
+            insert(key, value);
+        }
+        writeDisk(key, value);
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    // Disk entries that could not be written, listed or trimmed
+    long diskErrors() {
+        synchronized (diskLock) {
+            return diskErrors;
+        }
+    }
+
+    // The latest of those failures, null when there was none
+    IOException lastDiskError() {
+        synchronized (diskLock) {
+            return lastDiskError;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private void insert(String key, Serializable value) {
+        long entryWeight = weigh(value);
+        if (entryWeight > maxWeight) {
+            return;  // would evict everything else
+        }
+        Entry previous = entries.put(key, new Entry(value, entryWeight));
+        weight += entryWeight - (previous != null ? previous.weight : 0);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > maxWeight) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    // Rough retained size in bytes
+    static long weigh(Object value) {
+        if (value instanceof CharSequence) {
+            return 48 + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof int[]) {
+            return 16 + 4L * ((int[]) value).length;
+        }
+        if (value instanceof long[]) {
+            return 16 + 8L * ((long[]) value).length;
+        }
+        if (value instanceof HitBuffer) {
+            return 40 + ((HitBuffer) value).sizeInBytes();
+        }
+        if (value instanceof List) {
+            long total = 24;
+            for (Object element : (List<?>) value) {
+                total += 8 + weigh(element);
+            }
+            return total;
+        }
+        return 64;
+    }
+
+    private Serializable readDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file);
+             ObjectInputStream objects = new ObjectInputStream(in)) {
+            return (Serializable) objects.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+            return null;  // stale or damaged entry, recomputed and rewritten by the caller
+        }
+    }
+
+    // Written to a temporary file and moved into place so readers never see half an entry
+    private void writeDisk(String key, Serializable value) {
+        if (directory == null) {
+            return;
+        }
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporary);
+                 ObjectOutputStream objects = new ObjectOutputStream(out)) {
+                objects.writeObject(value);
+            }
+            long size = Files.size(temporary);
+            Files.move(temporary, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporary = null;
+            synchronized (diskLock) {
+                listDisk();
+                Long previous = diskEntries.remove(key);
+                diskBytes += size - (previous != null ? previous : 0);
+                diskEntries.put(key, size);
+                if (diskBytes > maxDiskBytes) {
+                    trimDisk();
+                }
+            }
+        } catch (IOException ex) {
+            failedOnDisk(ex);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // already counted
+                }
+            }
+        }
+    }
+
+    // Reads the sizes of the entries already on disk, oldest first, the first time they are needed
+    private void listDisk() throws IOException {
+        if (diskEntries != null) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> !file.getFileName().toString().endsWith(".tmp")).collect(Collectors.toList());
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        files.sort((a, b) -> Long.compare(modified.get(a), modified.get(b)));
+        LinkedHashMap<String, Long> listed = new LinkedHashMap<>();
+        long total = 0;
+        for (Path file : files) {
+            long size = Files.size(file);
+            listed.put(file.getFileName().toString(), size);
+            total += size;
+        }
+        diskEntries = listed;
+        diskBytes = total;
+    }
+
+    // Deletes the oldest entries until the disk tier fits again; under diskLock
+    private void trimDisk() {
+        Iterator<Map.Entry<String, Long>> oldest = diskEntries.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && oldest.hasNext()) {
+            Map.Entry<String, Long> entry = oldest.next();
+            try {
+                Files.deleteIfExists(directory.resolve(entry.getKey()));
+            } catch (IOException ex) {
+                failedOnDisk(ex);
+                continue;  // still on disk, so still counted
+            }
+            diskBytes -= entry.getValue();
+            oldest.remove();
+        }
+    }
+
+    private void failedOnDisk(IOException ex) {
+        synchronized (diskLock) {
+            diskErrors++;
+            lastDiskError = ex;
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", ex);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,215 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+// Result Exporter - writes hits as CSV, BED or JSON lines while they are produced. Rows are
+// encoded straight into a direct buffer that is flushed to a FileChannel whenever it fills, and
+// the record and label names are encoded once, so a row costs no String or object at all.
+//
+//   CSV    record,start,end,name,score  with a header line
+//   BED    record<TAB>start<TAB>end<TAB>name<TAB>score  score clipped to BED's 0-1000
+//   JSON   {"record":...,"start":...,"end":...,"name":...,"score":...}  one object per line
+//
+// Coordinates are 0-based and half-open in all three formats.
+final class ResultExporter implements HitSink, AutoCloseable {
+    static final int CSV = 0, BED = 1, JSON = 2;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int NUMBER_BYTES = 11;  // "-2147483648"
+    private static final byte[] JSON_RECORD = "{\"record\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_START = ",\"start\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_END = ",\"end\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_NAME = ",\"name\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_SCORE = ",\"score\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[NUMBER_BYTES];
+    private final int format;
+    private final byte[][] labels;
+    private byte[] record;
+    private long rows;
+
+    // labels are the names of the label ids the producer reports, e.g. the motifs
+    ResultExporter(Path path, int format, String record, String... labels) throws IOException {
+        if (format < CSV || format > JSON) {
+            throw new IllegalArgumentException("Unknown export format " + format);
+        }
+        this.format = format;
+        this.labels = new byte[labels.length][];
+        for (int i = 0; i < labels.length; i++) {
+            this.labels[i] = field(labels[i]);
+        }
+        this.record = field(record);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (format == CSV) {
+            put("record,start,end,name,score\n".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    // CSV, BED or JSON from the file extension (.csv, .bed, .json or .jsonl)
+    static int formatOf(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        } else if (name.endsWith(".bed")) {
+            return BED;
+        } else if (name.endsWith(".json") || name.endsWith(".jsonl")) {
+            return JSON;
+        }
+        throw new IllegalArgumentException("Unknown export format for " + path.getFileName() + ", use .csv, .bed or .json");
+    }
+
+    // Record (BED chromosome) name for the rows that follow, for exports of several sequences
+    void record(String name) {
+        record = field(name);
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    @Override
+    public void hit(int start, int end, int label, int score) {
+        try {
+            switch (format) {
+                case CSV:
+                    put(record);
+                    put((byte) ',');
+                    putInt(start);
+                    put((byte) ',');
+                    putInt(end);
+                    put((byte) ',');
+                    put(labels[label]);
+                    put((byte) ',');
+                    putInt(score);
+                    break;
+                case BED:
+                    put(record);
+                    put((byte) '\t');
+                    putInt(start);
+                    put((byte) '\t');
+                    putInt(end);
+                    put((byte) '\t');
+                    put(labels[label]);
+                    put((byte) '\t');
+                    putInt(Math.max(0, Math.min(1000, score)));
+                    break;
+                default:
+                    put(JSON_RECORD);
+                    put(record);
+                    put(JSON_START);
+                    putInt(start);
+                    put(JSON_END);
+                    putInt(end);
+                    put(JSON_NAME);
+                    put(labels[label]);
+                    put(JSON_SCORE);
+                    putInt(score);
+                    put((byte) '}');
+                    break;
+            }
+            put((byte) '\n');
+            rows++;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    // Decimal digits without going through a String
+    private void putInt(int value) throws IOException {
+        if (buffer.remaining() < NUMBER_BYTES) {
+            flush();
+        }
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                put("-2147483648".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) {
+            buffer.put(digits[--n]);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // A name encoded for the format: quoted when needed in CSV, without whitespace in BED,
+    // a string literal in JSON
+    private byte[] field(String name) {
+        StringBuilder out = new StringBuilder(name.length() + 2);
+        switch (format) {
+            case CSV:
+                if (name.indexOf(',') < 0 && name.indexOf('"') < 0 && name.indexOf('\n') < 0 && name.indexOf('\r') < 0) {
+                    return name.getBytes(StandardCharsets.UTF_8);
+                }
+                out.append('"').append(name.replace("\"", "\"\"")).append('"');
+                break;
+            case BED:
+                out.append(name.isEmpty() ? "." : name.replaceAll("\\s", "_"));
+                break;
+            default:
+                out.append('"');
+                for (int i = 0; i < name.length(); i++) {
+                    char c = name.charAt(i);
+                    if (c == '"' || c == '\\') {
+                        out.append('\\').append(c);
+                    } else if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+                out.append('"');
+                break;
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
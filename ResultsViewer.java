@@ -0,0 +1,287 @@
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+
+// Results Viewer - a table over a HitBuffer for hit sets far too large for a message dialog. The
+// model reads the primitive columns when a cell is painted and JTable only paints the visible
+// rows, so opening millions of hits costs nothing up front; the hits are shown in the order they
+// were found until they are sorted. Sorting and filtering build a row order array with one
+// primitive sort off the EDT, and Go to position scrolls to the first hit at or after a position.
+final class ResultsViewer {
+    static final int SHOWN_BASES = 60;  // longer hits are cut in the Sequence column
+
+    private static final String[] ORDERS = {"As found", "Position", "Length", "Score"};
+
+    private ResultsViewer() {
+    }
+
+    // labels name the hits' label ids, scoreName titles the score column (e.g. "Arm"); a null
+    // scoreName hides the column and its sort order, for hits that carry no score
+    static JDialog open(Frame owner, String title, HitBuffer hits, String[] labels, String scoreName,
+                        SequenceView sequence) {
+        HitTableModel model = new HitTableModel(hits, labels, scoreName != null ? scoreName : "Score", sequence);
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(false);  // TableRowSorter would box every cell it compares
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(HitTableModel.SEQUENCE).setPreferredWidth(360);
+        if (scoreName == null) {
+            table.removeColumn(table.getColumnModel().getColumn(HitTableModel.SCORE));
+        }
+
+        JComboBox<String> nameFilter = new JComboBox<>();
+        nameFilter.addItem("All");
+        for (String label : labels) {
+            nameFilter.addItem(label);
+        }
+        JTextField minLength = new JTextField(5);
+        JTextField maxLength = new JTextField(5);
+        JComboBox<String> order = new JComboBox<>(scoreName != null ? ORDERS : Arrays.copyOf(ORDERS, HitTableModel.BY_SCORE));
+        JCheckBox descending = new JCheckBox("Descending");
+        JButton apply = new JButton("Apply");
+        JTextField position = new JTextField(8);
+        JButton go = new JButton("Go to position");
+        JLabel status = new JLabel();
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        if (labels.length > 1) {
+            controls.add(new JLabel("Name:"));
+            controls.add(nameFilter);
+        }
+        controls.add(new JLabel("Length from"));
+        controls.add(minLength);
+        controls.add(new JLabel("to"));
+        controls.add(maxLength);
+        controls.add(new JLabel("Sort:"));
+        controls.add(order);
+        controls.add(descending);
+        controls.add(apply);
+        controls.add(position);
+        controls.add(go);
+
+        JDialog dialog = new JDialog(owner, title, false);
+        long total = hits.total();
+        Runnable showStatus = () -> status.setText("Showing " + model.getRowCount() + " of " + hits.size() + " hits"
+                + (total > hits.size() ? " (" + total + " found, export them all with Export Results...)" : ""));
+        apply.addActionListener(e -> {
+            int min;
+            int max;
+            try {
+                min = minLength.getText().trim().isEmpty() ? 0 : Integer.parseInt(minLength.getText().trim());
+                max = maxLength.getText().trim().isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(maxLength.getText().trim());
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(dialog, "Lengths must be numbers!");
+                return;
+            }
+            int label = nameFilter.getSelectedIndex() - 1;
+            int sortBy = order.getSelectedIndex();
+            boolean reverse = descending.isSelected();
+            apply.setEnabled(false);
+            status.setText("Sorting " + hits.size() + " hits...");
+            // sorting millions of hits takes a moment, so it runs off the EDT
+            new SwingWorker<int[], Void>() {
+                @Override
+                protected int[] doInBackground() {
+                    return model.rowsFor(label, min, max, sortBy, reverse);
+                }
+
+                @Override
+                protected void done() {
+                    apply.setEnabled(true);
+                    try {
+                        model.setRows(get(), sortBy, reverse);
+                    } catch (InterruptedException | ExecutionException ex) {
+                        JOptionPane.showMessageDialog(dialog, "Sorting failed: " + ex.getMessage());
+                    }
+                    showStatus.run();
+                }
+            }.execute();
+        });
+        go.addActionListener(e -> {
+            int row;
+            try {
+                row = model.rowAtOrAfter(Integer.parseInt(position.getText().trim()) - 1);  // positions are 1-based
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(dialog, "Position must be a number!");
+                return;
+            }
+            if (row < 0) {
+                JOptionPane.showMessageDialog(dialog, "No hit starts at or after that position.");
+                return;
+            }
+            table.setRowSelectionInterval(row, row);
+            table.scrollRectToVisible(table.getCellRect(row, 0, true));
+        });
+        showStatus.run();
+
+        dialog.add(controls, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        dialog.add(status, BorderLayout.SOUTH);
+        dialog.setSize(900, 500);
+        dialog.setLocationRelativeTo(owner);
+        dialog.setVisible(true);
+        return dialog;
+    }
+
+    // Lazy model: a cell is computed from the buffer when JTable asks for it. rows maps table rows
+    // to buffer indexes; null means every hit in buffer order, so nothing is allocated up front.
+    static final class HitTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+
+        static final int START = 0, END = 1, LENGTH = 2, NAME = 3, SCORE = 4, SEQUENCE = 5;
+        static final int AS_FOUND = 0, BY_POSITION = 1, BY_LENGTH = 2, BY_SCORE = 3;
+
+        private final HitBuffer hits;
+        private final String[] labels;
+        private final String[] columns;
+        private final SequenceView sequence;
+        private int[] rows;
+        private int order = AS_FOUND;
+        private boolean descending;
+
+        HitTableModel(HitBuffer hits, String[] labels, String scoreName, SequenceView sequence) {
+            this.hits = hits;
+            this.labels = labels;
+            this.columns = new String[]{"Start", "End", "Length", "Name", scoreName, "Sequence"};
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows == null ? hits.size() : rows.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == NAME || column == SEQUENCE ? String.class : Integer.class;
+        }
+
+        // 1-based inclusive coordinates, as in the other dialogs
+        @Override
+        public Object getValueAt(int row, int column) {
+            int i = hitAt(row);
+            switch (column) {
+                case START:
+                    return hits.start(i) + 1;
+                case END:
+                    return hits.end(i);
+                case LENGTH:
+                    return hits.end(i) - hits.start(i);
+                case NAME:
+                    return labels[hits.label(i)];
+                case SCORE:
+                    return hits.score(i);
+                default:
+                    int end = Math.min(hits.end(i), hits.start(i) + SHOWN_BASES);
+                    String text = sequence.subSequence(hits.start(i), end).toString();
+                    return end < hits.end(i) ? text + "..." : text;
+            }
+        }
+
+        // Buffer index of a table row
+        int hitAt(int row) {
+            return rows == null ? row : rows[row];
+        }
+
+        void arrange(int label, int minLength, int maxLength, int order, boolean descending) {
+            setRows(rowsFor(label, minLength, maxLength, order, descending), order, descending);
+        }
+
+        // Buffer indexes of the hits with the label (-1 for any) and a length in [minLength,
+        // maxLength], in one of the orders; ties stay in the order the hits were found in (reversed
+        // when descending). Only reads the buffer, so it can run off the EDT; null means all hits
+        // as found.
+        int[] rowsFor(int label, int minLength, int maxLength, int order, boolean descending) {
+            int n = hits.size();
+            long[] keys = new long[n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                int length = hits.end(i) - hits.start(i);
+                if ((label < 0 || hits.label(i) == label) && length >= minLength && length <= maxLength) {
+                    keys[count++] = (long) key(i, order) << 32 | i;
+                }
+            }
+            if (order != AS_FOUND) {
+                Arrays.parallelSort(keys, 0, count);
+            }
+            int[] arranged = new int[count];
+            for (int r = 0; r < count; r++) {
+                arranged[descending ? count - 1 - r : r] = (int) keys[r];
+            }
+            return label < 0 && count == n && order == AS_FOUND && !descending ? null : arranged;
+        }
+
+        // Shows a row order from rowsFor; on the EDT
+        void setRows(int[] rows, int order, boolean descending) {
+            this.rows = rows;
+            this.order = order;
+            this.descending = descending;
+            fireTableDataChanged();
+        }
+
+        private int key(int i, int order) {
+            switch (order) {
+                case BY_POSITION:
+                    return hits.start(i);
+                case BY_LENGTH:
+                    return hits.end(i) - hits.start(i);
+                case BY_SCORE:
+                    return hits.score(i);
+                default:
+                    return 0;
+            }
+        }
+
+        // Row of the hit with the smallest start >= position (0-based), -1 if there is none;
+        // a binary search when sorted by ascending position, a scan otherwise
+        int rowAtOrAfter(int position) {
+            int count = getRowCount();
+            if (order == BY_POSITION && !descending) {
+                int low = 0;
+                int high = count;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (hits.start(hitAt(mid)) < position) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return low < count ? low : -1;
+            }
+            int best = -1;
+            for (int row = 0; row < count; row++) {
+                int start = hits.start(hitAt(row));
+                if (start >= position && (best < 0 || start < hits.start(hitAt(best)))) {
+                    best = row;
+                }
+            }
+            return best;
+        }
+    }
+}
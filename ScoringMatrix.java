@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Scoring Matrix - substitution scores over a residue alphabet plus affine gap costs. A gap of
+// length L costs open + L * extend, as in BLAST. Residues are encoded once into alphabet indices;
+// characters outside the alphabet, lower case aside, score as the wildcard (N or X).
+final class ScoringMatrix {
+    static final ScoringMatrix NUCLEOTIDE = nucleotide(2, -3, 5, 2);  // blastn defaults
+
+    static final ScoringMatrix BLOSUM62 = parse("BLOSUM62",
+            "   A  R  N  D  C  Q  E  G  H  I  L  K  M  F  P  S  T  W  Y  V  B  Z  X  *\n" +
+            "A  4 -1 -2 -2  0 -1 -1  0 -2 -1 -1 -1 -1 -2 -1  1  0 -3 -2  0 -2 -1  0 -4\n" +
+            "R -1  5  0 -2 -3  1  0 -2  0 -3 -2  2 -1 -3 -2 -1 -1 -3 -2 -3 -1  0 -1 -4\n" +
+            "N -2  0  6  1 -3  0  0  0  1 -3 -3  0 -2 -3 -2  1  0 -4 -2 -3  3  0 -1 -4\n" +
+            "D -2 -2  1  6 -3  0  2 -1 -1 -3 -4 -1 -3 -3 -1  0 -1 -4 -3 -3  4  1 -1 -4\n" +
+            "C  0 -3 -3 -3  9 -3 -4 -3 -3 -1 -1 -3 -1 -2 -3 -1 -1 -2 -2 -1 -3 -3 -2 -4\n" +
+            "Q -1  1  0  0 -3  5  2 -2  0 -3 -2  1  0 -3 -1  0 -1 -2 -1 -2  0  3 -1 -4\n" +
+            "E -1  0  0  2 -4  2  5 -2  0 -3 -3  1 -2 -3 -1  0 -1 -3 -2 -2  1  4 -1 -4\n" +
+            "G  0 -2  0 -1 -3 -2 -2  6 -2 -4 -4 -2 -3 -3 -2  0 -2 -2 -3 -3 -1 -2 -1 -4\n" +
+            "H -2  0  1 -1 -3  0  0 -2  8 -3 -3 -1 -2 -1 -2 -1 -2 -2  2 -3  0  0 -1 -4\n" +
+            "I -1 -3 -3 -3 -1 -3 -3 -4 -3  4  2 -3  1  0 -3 -2 -1 -3 -1  3 -3 -3 -1 -4\n" +
+            "L -1 -2 -3 -4 -1 -2 -3 -4 -3  2  4 -2  2  0 -3 -2 -1 -2 -1  1 -4 -3 -1 -4\n" +
+            "K -1  2  0 -1 -3  1  1 -2 -1 -3 -2  5 -1 -3 -1  0 -1 -3 -2 -2  0  1 -1 -4\n" +
+            "M -1 -1 -2 -3 -1  0 -2 -3 -2  1  2 -1  5  0 -2 -1 -1 -1 -1  1 -3 -1 -1 -4\n" +
+            "F -2 -3 -3 -3 -2 -3 -3 -3 -1  0  0 -3  0  6 -4 -2 -2  1  3 -1 -3 -3 -1 -4\n" +
+            "P -1 -2 -2 -1 -3 -1 -1 -2 -2 -3 -3 -1 -2 -4  7 -1 -1 -4 -3 -2 -2 -1 -2 -4\n" +
+            "S  1 -1  1  0 -1  0  0  0 -1 -2 -2  0 -1 -2 -1  4  1 -3 -2 -2  0  0  0 -4\n" +
+            "T  0 -1  0 -1 -1 -1 -1 -2 -2 -1 -1 -1 -1 -2 -1  1  5 -2 -2  0 -1 -1  0 -4\n" +
+            "W -3 -3 -4 -4 -2 -2 -3 -2 -2 -3 -2 -3 -1  1 -4 -3 -2 11  2 -3 -4 -3 -2 -4\n" +
+            "Y -2 -2 -2 -3 -2 -1 -2 -3  2 -1 -1 -2 -1  3 -3 -2 -2  2  7 -1 -3 -2 -1 -4\n" +
+            "V  0 -3 -3 -3 -1 -2 -2 -3 -3  3  1 -2  1 -1 -2 -2  0 -3 -1  4 -3 -2 -1 -4\n" +
+            "B -2 -1  3  4 -3  0  1 -1  0 -3 -4  0 -3 -3 -2  0 -1 -4 -3 -3  4  1 -1 -4\n" +
+            "Z -1  0  0  1 -3  3  4 -2  0 -3 -3  1 -1 -3 -1  0 -1 -3 -2 -2  1  4 -1 -4\n" +
+            "X  0 -1 -1 -1 -2 -1 -1 -1 -1 -1 -1 -1 -1 -1 -2  0  0 -2 -1 -1 -1 -1 -1 -4\n" +
+            "* -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4 -4  1\n",
+            11, 1);
+
+    static final ScoringMatrix PAM250 = parse("PAM250",
+            "   A  R  N  D  C  Q  E  G  H  I  L  K  M  F  P  S  T  W  Y  V  B  Z  X  *\n" +
+            "A  2 -2  0  0 -2  0  0  1 -1 -1 -2 -1 -1 -3  1  1  1 -6 -3  0  0  0  0 -8\n" +
+            "R -2  6  0 -1 -4  1 -1 -3  2 -2 -3  3  0 -4  0  0 -1  2 -4 -2 -1  0 -1 -8\n" +
+            "N  0  0  2  2 -4  1  1  0  2 -2 -3  1 -2 -3  0  1  0 -4 -2 -2  2  1  0 -8\n" +
+            "D  0 -1  2  4 -5  2  3  1  1 -2 -4  0 -3 -6 -1  0  0 -7 -4 -2  3  3 -1 -8\n" +
+            "C -2 -4 -4 -5 12 -5 -5 -3 -3 -2 -6 -5 -5 -4 -3  0 -2 -8  0 -2 -4 -5 -3 -8\n" +
+            "Q  0  1  1  2 -5  4  2 -1  3 -2 -2  1 -1 -5  0 -1 -1 -5 -4 -2  1  3 -1 -8\n" +
+            "E  0 -1  1  3 -5  2  4  0  1 -2 -3  0 -2 -5 -1  0  0 -7 -4 -2  3  3 -1 -8\n" +
+            "G  1 -3  0  1 -3 -1  0  5 -2 -3 -4 -2 -3 -5  0  1  0 -7 -5 -1  0  0 -1 -8\n" +
+            "H -1  2  2  1 -3  3  1 -2  6 -2 -2  0 -2 -2  0 -1 -1 -3  0 -2  1  2 -1 -8\n" +
+            "I -1 -2 -2 -2 -2 -2 -2 -3 -2  5  2 -2  2  1 -2 -1  0 -5 -1  4 -2 -2 -1 -8\n" +
+            "L -2 -3 -3 -4 -6 -2 -3 -4 -2  2  6 -3  4  2 -3 -3 -2 -2 -1  2 -3 -3 -1 -8\n" +
+            "K -1  3  1  0 -5  1  0 -2  0 -2 -3  5  0 -5 -1  0  0 -3 -4 -2  1  0 -1 -8\n" +
+            "M -1  0 -2 -3 -5 -1 -2 -3 -2  2  4  0  6  0 -2 -2 -1 -4 -2  2 -2 -2 -1 -8\n" +
+            "F -3 -4 -3 -6 -4 -5 -5 -5 -2  1  2 -5  0  9 -5 -3 -3  0  7 -1 -4 -5 -2 -8\n" +
+            "P  1  0  0 -1 -3  0 -1  0  0 -2 -3 -1 -2 -5  6  1  0 -6 -5 -1 -1  0 -1 -8\n" +
+            "S  1  0  1  0  0 -1  0  1 -1 -1 -3  0 -2 -3  1  2  1 -2 -3 -1  0  0  0 -8\n" +
+            "T  1 -1  0  0 -2 -1  0  0 -1  0 -2  0 -1 -3  0  1  3 -5 -3  0  0 -1  0 -8\n" +
+            "W -6  2 -4 -7 -8 -5 -7 -7 -3 -5 -2 -3 -4  0 -6 -2 -5 17  0 -6 -5 -6 -4 -8\n" +
+            "Y -3 -4 -2 -4  0 -4 -4 -5  0 -1 -1 -4 -2  7 -5 -3 -3  0 10 -2 -3 -4 -2 -8\n" +
+            "V  0 -2 -2 -2 -2 -2 -2 -1 -2  4  2 -2  2 -1 -1 -1  0 -6 -2  4 -2 -2 -1 -8\n" +
+            "B  0 -1  2  3 -4  1  3  0  1 -2 -3  1 -2 -4 -1  0  0 -5 -3 -2  3  2 -1 -8\n" +
+            "Z  0  0  1  3 -5  3  3  0  2 -2 -3  0 -2 -5  0  0 -1 -6 -4 -2  2  3 -1 -8\n" +
+            "X  0 -1  0 -1 -3 -1 -1 -1 -1 -1 -1 -1 -1 -2 -1  0  0 -4 -2 -1 -1 -1 -1 -8\n" +
+            "* -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8 -8  1\n",
+            14, 2);
+
+    private final String name;
+    private final String alphabet;
+    private final byte[] index = new byte[128];  // character -> residue index
+    private final int[] scores;  // size * size, row major
+    private final int gapOpen;
+    private final int gapExtend;
+
+    private ScoringMatrix(String name, String alphabet, int[] scores, int wildcard, int gapOpen, int gapExtend) {
+        if (gapOpen < 0 || gapExtend < 1) {
+            throw new IllegalArgumentException("Gap open must be at least 0 and gap extend at least 1");
+        }
+        this.name = name;
+        this.alphabet = alphabet;
+        this.scores = scores;
+        this.gapOpen = gapOpen;
+        this.gapExtend = gapExtend;
+        Arrays.fill(index, (byte) wildcard);
+        for (int r = 0; r < alphabet.length(); r++) {
+            index[alphabet.charAt(r)] = (byte) r;
+            index[Character.toLowerCase(alphabet.charAt(r))] = (byte) r;
+        }
+    }
+
+    // A/C/G/T with U read as T; N scores 0 against everything
+    static ScoringMatrix nucleotide(int match, int mismatch, int gapOpen, int gapExtend) {
+        String alphabet = "ACGTN";
+        int size = alphabet.length();
+        int[] scores = new int[size * size];
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < size; b++) {
+                scores[a * size + b] = a == 4 || b == 4 ? 0 : a == b ? match : mismatch;
+            }
+        }
+        ScoringMatrix matrix = new ScoringMatrix("match " + match + " mismatch " + mismatch, alphabet, scores, 4, gapOpen, gapExtend);
+        matrix.index['U'] = 3;
+        matrix.index['u'] = 3;
+        return matrix;
+    }
+
+    // NCBI matrix format: a header line of residues, then one row per residue starting with the
+    // residue itself. Lines starting with # are comments. The wildcard is X, or N, or the last residue.
+    static ScoringMatrix parse(String name, String text, int gapOpen, int gapExtend) {
+        List<String[]> rows = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                rows.add(line.split("\\s+"));
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException(name + ": no matrix found");
+        }
+        StringBuilder alphabet = new StringBuilder();
+        for (String residue : rows.get(0)) {
+            if (residue.length() != 1 || residue.charAt(0) >= 128 || alphabet.indexOf(residue) >= 0) {
+                throw new IllegalArgumentException(name + ": bad residue '" + residue + "' in header");
+            }
+            alphabet.append(Character.toUpperCase(residue.charAt(0)));
+        }
+        int size = alphabet.length();
+        if (rows.size() != size + 1) {
+            throw new IllegalArgumentException(name + ": expected " + size + " rows, found " + (rows.size() - 1));
+        }
+        int[] scores = new int[size * size];
+        for (int a = 0; a < size; a++) {
+            String[] row = rows.get(a + 1);
+            if (row.length != size + 1 || Character.toUpperCase(row[0].charAt(0)) != alphabet.charAt(a)) {
+                throw new IllegalArgumentException(name + ": row " + (a + 1) + " does not match the header");
+            }
+            for (int b = 0; b < size; b++) {
+                try {
+                    scores[a * size + b] = Integer.parseInt(row[b + 1]);
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException(name + ": bad score '" + row[b + 1] + "' in row " + (a + 1));
+                }
+            }
+        }
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < a; b++) {
+                if (scores[a * size + b] != scores[b * size + a]) {
+                    throw new IllegalArgumentException(name + ": not symmetric at " + alphabet.charAt(a) + "/" + alphabet.charAt(b));
+                }
+            }
+        }
+        int wildcard = alphabet.indexOf("X") >= 0 ? alphabet.indexOf("X") : alphabet.indexOf("N") >= 0 ? alphabet.indexOf("N") : size - 1;
+        return new ScoringMatrix(name, alphabet.toString(), scores, wildcard, gapOpen, gapExtend);
+    }
+
+    static ScoringMatrix load(Path file, int gapOpen, int gapExtend) throws IOException {
+        return parse(file.getFileName().toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8), gapOpen, gapExtend);
+    }
+
+    // The same substitution scores with other gap costs
+    ScoringMatrix withGaps(int gapOpen, int gapExtend) {
+        ScoringMatrix matrix = new ScoringMatrix(name, alphabet, scores, 0, gapOpen, gapExtend);
+        System.arraycopy(index, 0, matrix.index, 0, index.length);
+        return matrix;
+    }
+
+    String name() {
+        return name;
+    }
+
+    int size() {
+        return alphabet.length();
+    }
+
+    char residue(int index) {
+        return alphabet.charAt(index);
+    }
+
+    int gapOpen() {
+        return gapOpen;
+    }
+
+    int gapExtend() {
+        return gapExtend;
+    }
+
+    // Cost of the first position of a gap
+    int firstGap() {
+        return gapOpen + gapExtend;
+    }
+
+    int score(int a, int b) {
+        return scores[a * alphabet.length() + b];
+    }
+
+    int maxScore() {
+        int max = Integer.MIN_VALUE;
+        for (int score : scores) {
+            max = Math.max(max, score);
+        }
+        return max;
+    }
+
+    int indexOf(char c) {
+        return c < 128 ? index[c] : index['?'];
+    }
+
+    byte[] encode(CharSequence sequence) {
+        byte[] encoded = new byte[sequence.length()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = (byte) indexOf(sequence.charAt(i));
+        }
+        return encoded;
+    }
+
+    @Override
+    public String toString() {
+        return name + ", gap " + gapOpen + "/" + gapExtend;
+    }
+}
@@ -0,0 +1,297 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Abstract Base Class - Demonstrates Abstraction
+abstract class Sequence {
+    protected String sequence;
+    protected PackedSequence packed;  // set instead of sequence for large 2-bit packed inputs
+    protected SequenceView view;  // set instead of both for slices and strand views of another sequence
+    private volatile SequenceValidator.Result validation;  // computed once; for views on first use
+    private volatile byte[] digest;  // SHA-256 of the content, see contentDigest
+
+    public Sequence(String sequence) {
+        this.sequence = sequence;
+        this.validation = SequenceValidator.validate(sequence, alphabet());
+    }
+
+    public Sequence(PackedSequence packed) {
+        this.packed = packed;
+        this.validation = SequenceValidator.validate(packed);
+    }
+
+    // Slicing or flipping a strand reads no bases; the view is validated the first time it is asked
+    public Sequence(SequenceView view) {
+        this.view = view;
+    }
+
+    // SequenceValidator.DNA, RNA or PROTEIN; called from the constructor, so it must not use fields
+    protected abstract int alphabet();
+
+    // Upper case letters of the alphabet only, and at least one of them
+    public boolean validateSequence() {
+        return validation().isValid(SequenceValidator.STRICT);
+    }
+
+    // Lenient checks, e.g. SequenceValidator.ALLOW_SOFT_MASKED | SequenceValidator.ALLOW_N
+    public boolean validateSequence(int mode) {
+        return validation().isValid(mode);
+    }
+
+    // Counts per character class and the first invalid position for any mode
+    public SequenceValidator.Result validation() {
+        SequenceValidator.Result result = validation;
+        if (result == null) {
+            result = SequenceValidator.validate(view, alphabet());
+            validation = result;
+        }
+        return result;
+    }
+
+    public int getLength() {
+        return packed != null ? packed.length() : text().length();
+    }
+
+    // Packed sequences and views are decoded on every call so the String copy is never kept around
+    public String getSequence() {
+        return packed != null ? packed.toString() : view != null ? view.toString() : sequence;
+    }
+
+    // The characters without a copy: the text, or the view; not for packed sequences
+    protected CharSequence text() {
+        return view != null ? view : sequence;
+    }
+
+    // The whole sequence as a view, for slicing and strand flips without copying
+    public SequenceView view() {
+        if (view != null) {
+            return view;
+        }
+        return packed != null ? SequenceView.of(packed) : SequenceView.of(sequence, alphabet() == SequenceValidator.RNA);
+    }
+
+    public PackedSequence getPacked() {
+        return packed;
+    }
+
+    // Per-base codes as used by PackedSequence, with N and INVALID for anything that is not a base
+    public byte[] toCodes() {
+        if (packed != null) {
+            return packed.toCodes();
+        }
+        if (view != null) {
+            return view.toCodes();
+        }
+        byte[] codes = new byte[sequence.length()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (byte) PackedSequence.codeOf(sequence.charAt(i));
+        }
+        return codes;
+    }
+
+    // SHA-256 of the text, or of the packed words and N runs, computed on first use
+    public byte[] contentDigest() {
+        byte[] result = digest;
+        if (result == null) {
+            MessageDigest sha = ResultCache.sha256();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            if (packed != null) {
+                buffer.put((byte) 'P').putInt(packed.length());
+                for (long word : packed.words()) {
+                    if (buffer.remaining() < Long.BYTES) {
+                        sha.update(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                    }
+                    buffer.putLong(word);
+                }
+                int[] starts = packed.ambiguousStarts();
+                int[] lengths = packed.ambiguousLengths();
+                for (int i = 0; i < starts.length; i++) {
+                    if (buffer.remaining() < 2 * Integer.BYTES) {
+                        sha.update(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                    }
+                    buffer.putInt(starts[i]).putInt(lengths[i]);
+                }
+            } else {
+                CharSequence text = text();
+                buffer.put((byte) 'S');
+                for (int i = 0; i < text.length(); i++) {
+                    if (buffer.remaining() < Character.BYTES) {
+                        sha.update(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                    }
+                    buffer.putChar(text.charAt(i));
+                }
+            }
+            sha.update(buffer.array(), 0, buffer.position());
+            result = sha.digest();
+            digest = result;
+        }
+        return result;
+    }
+
+    // The text as ASCII bytes for BaseKernels; only when it holds nothing but alphabet letters and N
+    protected byte[] kernelBytes() {
+        if (packed != null || validation().count(SequenceValidator.INVALID) > 0) {
+            return null;
+        }
+        return view != null ? view.toBytes() : sequence.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    // Single kernel pass for upper case text with at most N as extra letter, else SequenceStats
+    protected SequenceStats kernelStatistics(boolean rna, AnalysisMonitor monitor) {
+        SequenceValidator.Result validation = validation();
+        if (validation.count(SequenceValidator.SOFT_MASKED) == 0 && validation.count(SequenceValidator.SOFT_MASKED_N) == 0) {
+            byte[] bytes = kernelBytes();
+            if (bytes != null) {
+                monitor.checkpoint(0, bytes.length);
+                long[] bases = BaseKernels.INSTANCE.countBases(bytes, (byte) (rna ? 'U' : 'T'));
+                long[] counts = {bases[0], bases[1], bases[2], bases[3], validation.count(SequenceValidator.N)};
+                return SequenceStats.ofCounts(rna, bytes.length, counts, validation.firstOffset(SequenceValidator.N));
+            }
+        }
+        CharSequence text = text();
+        return SequenceStats.of(text, 0, text.length(), rna, monitor);
+    }
+
+    // Statistics of the whole sequence without recording a call, for operations that time themselves
+    protected SequenceStats computeStatistics(boolean rna, AnalysisMonitor monitor) {
+        return packed != null ? SequenceStats.of(packed) : kernelStatistics(rna, monitor);
+    }
+
+    // Every substring that equals its own reverse complement, ordered by start then length.
+    protected List<String> palindromeSubstrings(AnalysisMonitor monitor) {
+        SequenceView text = view();
+        List<String> palindromes = new ArrayList<>();
+        palindromeHits((start, end, label, arm) -> palindromes.add(text.subSequence(start, end).toString()), monitor);
+        return palindromes;
+    }
+
+    // The same palindromes streamed as (start, end, 0, arm) without building a substring each.
+    // [i, i + 2k) qualifies exactly when the radius at centre c = i + k is >= k, so centre c gives
+    // one hit at every start from c - radii[c] to c - 1. Centres are bucketed by their first start
+    // and the centres live at the current start are kept in ascending order, i.e. by length; each
+    // start merges its bucket in and drops the centre it passed, so the work is O(n + hits).
+    protected void palindromeHits(HitSink sink, AnalysisMonitor monitor) {
+        int length = getLength();
+        int[] radii = PalindromeFinder.evenRadii(toCodes(), monitor);
+        int[] bucket = new int[length];  // first centre starting at i, 0 for none (centre 0 has no arm)
+        int[] next = new int[length];    // next centre in the same bucket, ascending
+        for (int c = length - 1; c > 0; c--) {
+            if (radii[c] > 0) {
+                next[c] = bucket[c - radii[c]];
+                bucket[c - radii[c]] = c;
+            }
+        }
+        int[] live = new int[16];
+        int[] merged = new int[16];
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            if ((i & (AnalysisMonitor.CHECK_INTERVAL - 1)) == 0) {
+                monitor.checkpoint(i, length);
+            }
+            int j = size > 0 && live[0] == i ? 1 : 0;  // centre i ended with start i - 1
+            int count = 0;
+            for (int c = bucket[i]; j < size || c != 0; count++) {
+                if (count == merged.length) {
+                    merged = Arrays.copyOf(merged, count * 2);
+                }
+                if (c == 0 || (j < size && live[j] < c)) {
+                    merged[count] = live[j++];
+                } else {
+                    merged[count] = c;
+                    c = next[c];
+                }
+            }
+            int[] swap = live;
+            live = merged;
+            merged = swap;
+            size = count;
+            for (int h = 0; h < size; h++) {
+                sink.hit(i, 2 * live[h] - i, 0, live[h] - i);
+            }
+        }
+    }
+
+    // 1-based start of every exact occurrence of motif, overlapping ones included. Text and views
+    // are searched in place, only packed sequences are decoded to a String first.
+    protected int[] motifPositions(String motif) {
+        int[] starts = new int[16];
+        int count = 0;
+        CharSequence text = packed != null ? packed.toString() : text();
+        int index = indexOf(text, motif, 0);
+        while (index != -1) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = index + 1;
+            index = indexOf(text, motif, index + 1);
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    // String.indexOf for a String, a plain scan over any other CharSequence such as a view
+    private static int indexOf(CharSequence text, String motif, int from) {
+        if (text instanceof String) {
+            return ((String) text).indexOf(motif, from);
+        }
+        for (int i = from, last = text.length() - motif.length(); i <= last; i++) {
+            int j = 0;
+            while (j < motif.length() && text.charAt(i + j) == motif.charAt(j)) {
+                j++;
+            }
+            if (j == motif.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Streams the motif hits; a view is decoded one window at a time instead of as a whole
+    protected void motifHits(MotifSearcher searcher, HitSink sink, AnalysisMonitor monitor) {
+        if (view != null) {
+            searcher.search(view, sink, monitor);
+        } else {
+            searcher.search(toCodes(), sink, monitor);
+        }
+    }
+
+    // Read-only List view of an int[]; values are boxed on access instead of all up front
+    protected static List<Integer> asList(int[] values) {
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return values[index];
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+    // Builds the same map shape as the String based countNucleotides from the word level counts
+    protected static Map<Character, Integer> packedCounts(PackedSequence packed, char fourthBase) {
+        return statsCounts(SequenceStats.of(packed), fourthBase);
+    }
+
+    protected static Map<Character, Integer> statsCounts(SequenceStats stats, char fourthBase) {
+        Map<Character, Integer> map = new HashMap<>();
+        map.put('A', (int) stats.count(SequenceStats.A));
+        map.put(fourthBase, (int) stats.count(SequenceStats.T));
+        map.put('C', (int) stats.count(SequenceStats.C));
+        map.put('G', (int) stats.count(SequenceStats.G));
+        if (stats.count(SequenceStats.N) > 0) {
+            map.put('N', (int) stats.count(SequenceStats.N));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,395 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Sequence Aligner - global (Needleman-Wunsch) and local (Smith-Waterman) pairwise alignment with
+// affine gaps (Gotoh) under a ScoringMatrix. align() keeps one byte of traceback per cell, so it
+// is limited to MAX_TRACEBACK_CELLS; a band of width w keeps only the cells with |i - j| <= w.
+// score() keeps two rows and is linear in memory; unbanded local scores go through the striped
+// AlignmentKernels. scoreAll and alignAll run one query against many targets on a ForkJoinPool.
+final class SequenceAligner {
+    static final int GLOBAL = 0, LOCAL = 1;  // modes
+    static final int NO_BAND = Integer.MAX_VALUE / 2;
+    static final long MAX_TRACEBACK_CELLS = 1L << 28;
+
+    // Traceback byte: where H came from, and whether E and F opened at this cell
+    private static final int DIAGONAL = 0, FROM_E = 1, FROM_F = 2, STOP = 3, SOURCE = 3;
+    private static final int E_OPENED = 4, F_OPENED = 8;
+
+    private final ScoringMatrix matrix;
+    private final int mode;
+    private final int band;
+    private final ForkJoinPool pool;
+
+    // band is the largest |i - j| scored, or NO_BAND; global alignments widen it to |n - m|
+    SequenceAligner(ScoringMatrix matrix, int mode, int band, ForkJoinPool pool) {
+        if (mode != GLOBAL && mode != LOCAL) {
+            throw new IllegalArgumentException("Unknown alignment mode " + mode);
+        }
+        if (band < 0) {
+            throw new IllegalArgumentException("Band must not be negative");
+        }
+        this.matrix = matrix;
+        this.mode = mode;
+        this.band = Math.min(band, NO_BAND);
+        this.pool = pool;
+    }
+
+    SequenceAligner(ScoringMatrix matrix, int mode) {
+        this(matrix, mode, NO_BAND, ForkJoinPool.commonPool());
+    }
+
+    ScoringMatrix matrix() {
+        return matrix;
+    }
+
+    boolean isLocal() {
+        return mode == LOCAL;
+    }
+
+    int score(CharSequence query, CharSequence target) {
+        return score(matrix.encode(query), matrix.encode(target), null);
+    }
+
+    private int score(byte[] query, byte[] target, AlignmentKernels.Profile profile) {
+        if (mode == LOCAL && band == NO_BAND) {
+            AlignmentKernels kernels = AlignmentKernels.INSTANCE;
+            return kernels.localScore(profile != null ? profile : kernels.profile(query, matrix), target);
+        }
+        return AlignmentKernels.score(query, target, matrix, mode == LOCAL, band);
+    }
+
+    // Scores of the query against every target, in target order
+    int[] scoreAll(CharSequence query, List<? extends CharSequence> targets) {
+        byte[] encoded = matrix.encode(query);
+        AlignmentKernels.Profile profile = mode == LOCAL && band == NO_BAND ? AlignmentKernels.INSTANCE.profile(encoded, matrix) : null;
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (CharSequence target : targets) {
+            tasks.add(() -> score(encoded, matrix.encode(target), profile));
+        }
+        List<Integer> scores = runAll(tasks);
+        int[] result = new int[scores.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = scores.get(i);
+        }
+        return result;
+    }
+
+    List<Alignment> alignAll(CharSequence query, List<? extends CharSequence> targets) {
+        List<Callable<Alignment>> tasks = new ArrayList<>();
+        for (CharSequence target : targets) {
+            tasks.add(() -> align(query, target, AnalysisMonitor.NONE));
+        }
+        return runAll(tasks);
+    }
+
+    private <R> List<R> runAll(List<Callable<R>> tasks) {
+        List<R> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<R> task : pool.invokeAll(tasks)) {
+                results.add(task.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aligning", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    Alignment align(CharSequence query, CharSequence target) {
+        return align(query, target, AnalysisMonitor.NONE);
+    }
+
+    // Rows are query positions i, columns target positions j. E is a gap in the query (moving
+    // along j) and F a gap in the target (moving along i).
+    Alignment align(CharSequence query, CharSequence target, AnalysisMonitor monitor) {
+        byte[] q = matrix.encode(query);
+        byte[] t = matrix.encode(target);
+        int n = q.length;
+        int m = t.length;
+        boolean local = mode == LOCAL;
+        int w = local ? band : Math.max(band, Math.abs(n - m));
+        boolean banded = w < Math.max(n, m);
+        int width = banded ? 2 * w + 1 : m + 1;
+        if ((long) (n + 1) * width > MAX_TRACEBACK_CELLS) {
+            throw new IllegalArgumentException("Alignment of " + n + " x " + m + " is too large to trace back; "
+                    + "use a band or score only");
+        }
+        byte[] trace = new byte[(n + 1) * width];
+        int open = matrix.firstGap();
+        int extend = matrix.gapExtend();
+        int[] h = new int[m + 1];  // H of the previous query position, by target position
+        int[] f = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            h[j] = j > w ? AlignmentKernels.NEG : local || j == 0 ? 0 : -(matrix.gapOpen() + j * extend);
+            f[j] = AlignmentKernels.NEG;
+        }
+        int best = 0, bestI = 0, bestJ = 0;
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - w);
+            int to = Math.min(m, i + w);
+            if (from > to) {
+                break;  // local band past the end of the target
+            }
+            int diagonal = h[from - 1];
+            h[from - 1] = from > 1 || i > w ? AlignmentKernels.NEG : local ? 0 : -(matrix.gapOpen() + i * extend);
+            int e = AlignmentKernels.NEG;
+            int residue = q[i - 1];
+            int row = i * width + (banded ? w - i : 0);
+            for (int j = from; j <= to; j++) {
+                int direction;
+                int eOpen = h[j - 1] - open;
+                if (eOpen >= e - extend) {
+                    e = eOpen;
+                    direction = E_OPENED;
+                } else {
+                    e -= extend;
+                    direction = 0;
+                }
+                int fOpen = h[j] - open;
+                if (fOpen >= f[j] - extend) {
+                    f[j] = fOpen;
+                    direction |= F_OPENED;
+                } else {
+                    f[j] -= extend;
+                }
+                int cell = diagonal + matrix.score(residue, t[j - 1]);
+                int source = DIAGONAL;
+                if (e > cell) {
+                    cell = e;
+                    source = FROM_E;
+                }
+                if (f[j] > cell) {
+                    cell = f[j];
+                    source = FROM_F;
+                }
+                if (local && cell <= 0) {
+                    cell = 0;
+                    source = STOP;
+                } else if (local && cell > best) {
+                    best = cell;
+                    bestI = i;
+                    bestJ = j;
+                }
+                trace[row + j] = (byte) (direction | source);
+                diagonal = h[j];
+                h[j] = cell;
+            }
+            if (to < m) {
+                h[to + 1] = AlignmentKernels.NEG;  // leaves the band
+                f[to + 1] = AlignmentKernels.NEG;
+            }
+            monitor.checkpoint(i, n);
+        }
+        if (!local) {
+            best = m == 0 && n > 0 ? -(matrix.gapOpen() + n * extend) : h[m];  // no column was scored
+            bestI = n;
+            bestJ = m;
+        }
+        return traceBack(query, target, trace, width, banded ? w : -1, best, bestI, bestJ);
+    }
+
+    // Follows the traceback from the end cell; shift is the band width, or -1 when unbanded
+    private Alignment traceBack(CharSequence query, CharSequence target, byte[] trace, int width, int shift,
+                                int score, int endI, int endJ) {
+        StringBuilder alignedQuery = new StringBuilder();
+        StringBuilder alignedTarget = new StringBuilder();
+        int i = endI;
+        int j = endJ;
+        int state = DIAGONAL;
+        while (i > 0 && j > 0) {
+            int direction = trace[i * width + (shift >= 0 ? j - i + shift : j)];
+            if (state == DIAGONAL) {
+                int source = direction & SOURCE;
+                if (source == STOP) {
+                    break;
+                }
+                if (source == DIAGONAL) {
+                    alignedQuery.append(query.charAt(--i));
+                    alignedTarget.append(target.charAt(--j));
+                } else {
+                    state = source;
+                }
+            } else if (state == FROM_E) {
+                alignedQuery.append('-');
+                alignedTarget.append(target.charAt(--j));
+                if ((direction & E_OPENED) != 0) {
+                    state = DIAGONAL;
+                }
+            } else {
+                alignedQuery.append(query.charAt(--i));
+                alignedTarget.append('-');
+                if ((direction & F_OPENED) != 0) {
+                    state = DIAGONAL;
+                }
+            }
+        }
+        if (mode == GLOBAL) {  // the rest runs along the first row or column
+            for (; i > 0; i--) {
+                alignedQuery.append(query.charAt(i - 1));
+                alignedTarget.append('-');
+            }
+            for (; j > 0; j--) {
+                alignedQuery.append('-');
+                alignedTarget.append(target.charAt(j - 1));
+            }
+        }
+        return new Alignment(matrix, mode, score, i, endI, j, endJ,
+                alignedQuery.reverse().toString(), alignedTarget.reverse().toString());
+    }
+
+    // One pairwise alignment; positions are 0-based and ends exclusive
+    static final class Alignment {
+        private final int mode;
+        private final int score;
+        private final int queryStart, queryEnd, targetStart, targetEnd;
+        private final String alignedQuery;
+        private final String alignedTarget;
+        private final String midline;  // | identical, + positive score, space otherwise
+        private final int identities;
+        private final int gaps;
+
+        Alignment(ScoringMatrix matrix, int mode, int score, int queryStart, int queryEnd, int targetStart, int targetEnd,
+                  String alignedQuery, String alignedTarget) {
+            this.mode = mode;
+            this.score = score;
+            this.queryStart = queryStart;
+            this.queryEnd = queryEnd;
+            this.targetStart = targetStart;
+            this.targetEnd = targetEnd;
+            this.alignedQuery = alignedQuery;
+            this.alignedTarget = alignedTarget;
+            StringBuilder mid = new StringBuilder(alignedQuery.length());
+            int same = 0;
+            int gapped = 0;
+            for (int k = 0; k < alignedQuery.length(); k++) {
+                char a = alignedQuery.charAt(k);
+                char b = alignedTarget.charAt(k);
+                if (a == '-' || b == '-') {
+                    gapped++;
+                    mid.append(' ');
+                } else if (Character.toUpperCase(a) == Character.toUpperCase(b)) {
+                    same++;
+                    mid.append('|');
+                } else {
+                    mid.append(matrix.score(matrix.indexOf(a), matrix.indexOf(b)) > 0 ? '+' : ' ');
+                }
+            }
+            this.midline = mid.toString();
+            this.identities = same;
+            this.gaps = gapped;
+        }
+
+        int score() {
+            return score;
+        }
+
+        boolean isLocal() {
+            return mode == LOCAL;
+        }
+
+        int queryStart() {
+            return queryStart;
+        }
+
+        int queryEnd() {
+            return queryEnd;
+        }
+
+        int targetStart() {
+            return targetStart;
+        }
+
+        int targetEnd() {
+            return targetEnd;
+        }
+
+        String alignedQuery() {
+            return alignedQuery;
+        }
+
+        String alignedTarget() {
+            return alignedTarget;
+        }
+
+        int length() {
+            return alignedQuery.length();
+        }
+
+        int identities() {
+            return identities;
+        }
+
+        int gaps() {
+            return gaps;
+        }
+
+        double identity() {
+            return length() == 0 ? 0 : (double) identities / length();
+        }
+
+        // M for aligned pairs, I for query residues against a gap, D for target residues against one
+        String cigar() {
+            StringBuilder cigar = new StringBuilder();
+            char last = 0;
+            int run = 0;
+            for (int k = 0; k < alignedQuery.length(); k++) {
+                char op = alignedQuery.charAt(k) == '-' ? 'D' : alignedTarget.charAt(k) == '-' ? 'I' : 'M';
+                if (op != last && run > 0) {
+                    cigar.append(run).append(last);
+                    run = 0;
+                }
+                last = op;
+                run++;
+            }
+            if (run > 0) {
+                cigar.append(run).append(last);
+            }
+            return cigar.toString();
+        }
+
+        // Query, midline and target in blocks of width columns with 1-based positions
+        String format(int width) {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("Score %d, identities %d/%d (%.1f%%), gaps %d%n",
+                    score, identities, length(), 100 * identity(), gaps));
+            int q = queryStart;
+            int t = targetStart;
+            for (int from = 0; from < length(); from += width) {
+                int to = Math.min(length(), from + width);
+                String queryBlock = alignedQuery.substring(from, to);
+                String targetBlock = alignedTarget.substring(from, to);
+                int qNext = q + residues(queryBlock);
+                int tNext = t + residues(targetBlock);
+                out.append(String.format("%nQuery  %8d  %s  %d%n", q + 1, queryBlock, qNext));
+                out.append(String.format("       %8s  %s%n", "", midline.substring(from, to)));
+                out.append(String.format("Target %8d  %s  %d%n", t + 1, targetBlock, tNext));
+                q = qNext;
+                t = tNext;
+            }
+            return out.toString();
+        }
+
+        private static int residues(String block) {
+            int count = 0;
+            for (int k = 0; k < block.length(); k++) {
+                if (block.charAt(k) != '-') {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return (mode == LOCAL ? "local" : "global") + " score " + score + " query " + (queryStart + 1) + "-" + queryEnd
+                    + " target " + (targetStart + 1) + "-" + targetEnd + " " + cigar();
+        }
+    }
+}
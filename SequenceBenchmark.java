@@ -0,0 +1,336 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+// Sequence Benchmark - throughput and allocation of the Sequence operations over synthetic random
+// and repeat-rich inputs. Every measured call's result is folded into a sink so the JIT cannot
+// drop it; allocation comes from the per-thread counter of the HotSpot ThreadMXBean. The
+// palindrome engine is also run over a pure AT repeat, its worst case, where the time per base
+// must stay flat across sizes. The dna.parallel.* operations run the same statistics, motif and
+// palindrome searches through ParallelAnalysis on the common pool; against their sequential rows
+// they give the speedup on the machine's cores.
+//
+//   java -Xmx8g SequenceBenchmark [--sizes 1k,10k,100k,1m,10m,100m] [--kinds random,repeat]
+//        [--repr string,packed] [--ops name,...] [--warmup 3] [--iterations 5] [--time-ms 500]
+//        [--format csv|json] [--out results.csv] [--seed 42]
+public class SequenceBenchmark {
+    private static final String[] DEFAULT_SIZES = {"1k", "10k", "100k", "1m", "10m", "100m"};
+
+    private static volatile long sink;
+
+    // One benchmarked operation; maxSize skips sizes whose output or running time is not linear
+    private static final class Operation {
+        final String name;
+        final int maxSize;
+        final Function<Inputs, Object> body;
+
+        Operation(String name, int maxSize, Function<Inputs, Object> body) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.body = body;
+        }
+    }
+
+    // The same bases as DNA, RNA and protein (the DNA translated in frame 0, stops included), and
+    // codes of an AT repeat of the same length, where every centre is one long palindrome
+    private static final class Inputs {
+        final DNASequence dna;
+        final RNASequence rna;
+        final ProteinSequence protein;
+        final byte[] tandem;
+
+        Inputs(DNASequence dna, RNASequence rna, ProteinSequence protein, byte[] tandem) {
+            this.dna = dna;
+            this.rna = rna;
+            this.protein = protein;
+            this.tandem = tandem;
+        }
+    }
+
+    private static final MotifSearcher MOTIFS = new MotifSearcher(Arrays.asList("GAATTC", "TATAAA", "GGATCC", "CANNTG", "RGGWCC"));
+    private static final PalindromeFinder PALINDROMES = new PalindromeFinder(6, 50, 0, 0);
+    private static final ParallelAnalysis PARALLEL = new ParallelAnalysis();
+
+    private static final List<Operation> OPERATIONS = Arrays.asList(
+            new Operation("dna.validateSequence", Integer.MAX_VALUE, in -> in.dna.validateSequence()),
+            new Operation("dna.findComplement", Integer.MAX_VALUE, in -> in.dna.findComplement()),
+            new Operation("dna.calculateGCContent", Integer.MAX_VALUE, in -> in.dna.calculateGCContent()),
+            new Operation("dna.countNucleotides", Integer.MAX_VALUE, in -> in.dna.countNucleotides()),
+            new Operation("dna.transcribeToRNA", Integer.MAX_VALUE, in -> in.dna.transcribeToRNA()),
+            new Operation("dna.findMotif", Integer.MAX_VALUE, in -> in.dna.findMotif("GAATTC")),
+            new Operation("dna.findMotifs", Integer.MAX_VALUE, in -> in.dna.findMotifs(MOTIFS)),
+            new Operation("dna.findPalindrome", 1 << 20, in -> in.dna.findPalindrome()),  // output grows with the repeats
+            new Operation("dna.findPalindromes", Integer.MAX_VALUE, in -> in.dna.findPalindromes(6, 50, 0, 0)),
+            new Operation("dna.statistics", Integer.MAX_VALUE, in -> in.dna.statistics()),
+            new Operation("dna.parallel.statistics", Integer.MAX_VALUE, in -> PARALLEL.statistics(in.dna)),
+            new Operation("dna.parallel.findMotifs", Integer.MAX_VALUE, in -> PARALLEL.findMotifs(in.dna, MOTIFS)),
+            new Operation("dna.parallel.findPalindromes", Integer.MAX_VALUE, in -> PARALLEL.findPalindromes(in.dna, PALINDROMES)),
+            new Operation("tandem.streamPalindromes", Integer.MAX_VALUE, in -> streamPalindromes(in.tandem)),
+            new Operation("dna.translateSixFrames", Integer.MAX_VALUE, in -> in.dna.translateSixFrames(GeneticCode.STANDARD)),
+            new Operation("dna.findORFs", Integer.MAX_VALUE, in -> in.dna.findORFs(30, GeneticCode.STANDARD)),
+            new Operation("rna.validateSequence", Integer.MAX_VALUE, in -> in.rna.validateSequence()),
+            new Operation("rna.calculateGCContent", Integer.MAX_VALUE, in -> in.rna.calculateGCContent()),
+            new Operation("rna.countNucleotides", Integer.MAX_VALUE, in -> in.rna.countNucleotides()),
+            new Operation("rna.transcribeToProtein", Integer.MAX_VALUE, in -> in.rna.transcribeToProtein()),
+            new Operation("rna.findMotif", Integer.MAX_VALUE, in -> in.rna.findMotif("GAAUUC")),
+            new Operation("rna.findPalindrome", 1 << 20, in -> in.rna.findPalindrome()),
+            new Operation("protein.validateSequence", Integer.MAX_VALUE, in -> in.protein.validateSequence()));
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        long iterationNanos = Long.parseLong(options.getOrDefault("time-ms", "500")) * 1_000_000L;
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        String format = options.getOrDefault("format", "csv");
+        List<String> kinds = Arrays.asList(options.getOrDefault("kinds", "random,repeat").split(","));
+        List<String> representations = Arrays.asList(options.getOrDefault("repr", "string,packed").split(","));
+        List<String> selected = options.containsKey("ops") ? Arrays.asList(options.get("ops").split(",")) : null;
+        String[] sizes = options.containsKey("sizes") ? options.get("sizes").split(",") : DEFAULT_SIZES;
+
+        PrintStream out = options.containsKey("out")
+                ? new PrintStream(Files.newOutputStream(Paths.get(options.get("out"))), false, "UTF-8")
+                : System.out;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (format.equals("csv")) {
+            out.println("benchmark,kind,repr,size,iterations,ops,ns_per_op,ops_per_s,mb_per_s,bytes_per_op,alloc_mb_per_s");
+        }
+
+        for (String sizeText : sizes) {
+            int size = parseSize(sizeText);
+            for (String kind : kinds) {
+                String bases = kind.equals("repeat") ? repeatRich(size, seed) : random(size, seed);
+                for (String repr : representations) {
+                    Inputs inputs = inputs(bases, repr.equals("packed"));
+                    for (Operation op : OPERATIONS) {
+                        if ((selected != null && !selected.contains(op.name)) || size > op.maxSize) {
+                            continue;
+                        }
+                        Map<String, Object> row = measure(op, inputs, warmup, iterations, iterationNanos);
+                        row.put("kind", kind);
+                        row.put("repr", repr);
+                        row.put("size", size);
+                        if (format.equals("csv")) {
+                            out.println(csvRow(row));
+                            out.flush();
+                        } else {
+                            rows.add(row);
+                        }
+                        System.err.printf(Locale.ROOT, "%-26s %-6s %-6s %10d  %12.1f ns/op  %10.1f B/op%n",
+                                op.name, kind, repr, size, (double) row.get("ns_per_op"), (double) row.get("bytes_per_op"));
+                    }
+                }
+            }
+        }
+        if (!format.equals("csv")) {
+            out.println(json(rows));
+        }
+        out.flush();
+        if (out != System.out) {
+            out.close();
+        }
+        System.err.println("sink " + sink);
+    }
+
+    // Repeats the operation for at least iterationNanos per iteration; reports the mean over the
+    // measured iterations
+    private static Map<String, Object> measure(Operation op, Inputs inputs, int warmup, int iterations, long iterationNanos) {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long threadId = Thread.currentThread().getId();
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int iteration = 0; iteration < warmup + iterations; iteration++) {
+            long ops = 0;
+            long bytesBefore = threads != null ? threads.getThreadAllocatedBytes(threadId) : 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                consume(op.body.apply(inputs));
+                ops++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < iterationNanos);
+            long bytes = threads != null ? threads.getThreadAllocatedBytes(threadId) - bytesBefore : 0;
+            if (iteration >= warmup) {
+                totalOps += ops;
+                totalNanos += elapsed;
+                totalBytes += bytes;
+            }
+        }
+        int size = inputs.dna.getLength();
+        double nsPerOp = totalNanos / (double) totalOps;
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("benchmark", op.name);
+        row.put("iterations", iterations);
+        row.put("ops", totalOps);
+        row.put("ns_per_op", nsPerOp);
+        row.put("ops_per_s", 1e9 / nsPerOp);
+        row.put("mb_per_s", size / nsPerOp * 1e9 / 1e6);
+        row.put("bytes_per_op", threads != null ? totalBytes / (double) totalOps : -1.0);
+        row.put("alloc_mb_per_s", threads != null ? totalBytes / (double) totalNanos * 1e9 / 1e6 : -1.0);
+        return row;
+    }
+
+    // HotSpot's per-thread allocation counter, or null on VMs without one
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    // Folds a cheap digest of the result into the sink
+    private static void consume(Object result) {
+        long digest;
+        if (result instanceof List) {
+            digest = ((List<?>) result).size();
+        } else if (result instanceof Map) {
+            digest = ((Map<?, ?>) result).hashCode();
+        } else if (result instanceof Object[]) {
+            digest = ((Object[]) result).length;
+        } else if (result instanceof Sequence) {
+            digest = ((Sequence) result).getLength();
+        } else if (result instanceof MotifSearcher.Hits) {
+            digest = ((MotifSearcher.Hits) result).size();
+        } else if (result instanceof PalindromeFinder.Hits) {
+            digest = ((PalindromeFinder.Hits) result).size();
+        } else if (result instanceof String) {
+            digest = ((String) result).length();
+        } else {
+            digest = result.hashCode();
+        }
+        sink += digest;
+    }
+
+    private static Inputs inputs(String bases, boolean packed) {
+        DNASequence dna = packed ? new DNASequence(PackedSequence.encode(bases, false)) : new DNASequence(bases);
+        RNASequence rna = dna.transcribeToRNA();
+        if (!packed) {
+            rna = new RNASequence(rna.getSequence());
+        }
+        byte[] frame = new Translator(GeneticCode.STANDARD).translateSixFrames(dna.toCodes())[0];
+        byte[] tandem = new byte[bases.length()];
+        for (int i = 0; i < tandem.length; i++) {
+            tandem[i] = (byte) (i % 2 == 0 ? PackedSequence.A : PackedSequence.T);
+        }
+        return new Inputs(dna, rna, Translator.toProtein(frame), tandem);
+    }
+
+    // Exact palindromes of unbounded arm streamed window by window; the hits are only counted
+    private static long streamPalindromes(byte[] codes) {
+        long[] arms = new long[1];
+        PalindromeFinder.exact(4).find(codes, (start, end, label, arm) -> arms[0] += arm, AnalysisMonitor.NONE);
+        return arms[0];
+    }
+
+    // Uniform random bases
+    static String random(int size, long seed) {
+        Random random = new Random(seed);
+        char[] bases = new char[size];
+        for (int i = 0; i < size; i++) {
+            bases[i] = "ACGT".charAt(random.nextInt(4));
+        }
+        return new String(bases);
+    }
+
+    // Tandem repeats of short units mixed with inverted repeats of earlier blocks and random
+    // spacers, with about 1% point mutations, like the repeat content of real genomes
+    static String repeatRich(int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder bases = new StringBuilder(size);
+        while (bases.length() < size) {
+            int kind = random.nextInt(3);
+            if (kind == 0) {
+                String unit = random(2 + random.nextInt(30), random.nextLong());
+                for (int copies = 2 + random.nextInt(20); copies > 0; copies--) {
+                    bases.append(unit);
+                }
+            } else if (kind == 1 && bases.length() > 100) {
+                int length = 10 + random.nextInt(90);
+                int start = random.nextInt(bases.length() - length);
+                bases.append(PackedSequence.encode(bases.subSequence(start, start + length), false).reverseComplement());
+            } else {
+                bases.append(random(20 + random.nextInt(200), random.nextLong()));
+            }
+        }
+        bases.setLength(size);
+        for (int mutations = size / 100; mutations > 0; mutations--) {
+            bases.setCharAt(random.nextInt(size), "ACGT".charAt(random.nextInt(4)));
+        }
+        return bases.toString();
+    }
+
+    // 1k, 10M, 2g or a plain number of bases
+    static int parseSize(String text) {
+        String lower = text.trim().toLowerCase(Locale.ROOT);
+        long scale = 1;
+        if (lower.endsWith("k")) {
+            scale = 1_000;
+        } else if (lower.endsWith("m")) {
+            scale = 1_000_000;
+        } else if (lower.endsWith("g")) {
+            scale = 1_000_000_000;
+        }
+        String digits = scale == 1 ? lower : lower.substring(0, lower.length() - 1);
+        return Math.toIntExact(Long.parseLong(digits) * scale);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static String csvRow(Map<String, Object> row) {
+        String[] columns = {"benchmark", "kind", "repr", "size", "iterations", "ops", "ns_per_op", "ops_per_s",
+                "mb_per_s", "bytes_per_op", "alloc_mb_per_s"};
+        StringBuilder line = new StringBuilder();
+        for (String column : columns) {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            line.append(format(row.get(column)));
+        }
+        return line.toString();
+    }
+
+    private static String json(List<Map<String, Object>> rows) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < rows.size(); i++) {
+            json.append("  {");
+            boolean first = true;
+            for (Map.Entry<String, Object> field : rows.get(i).entrySet()) {
+                json.append(first ? "" : ", ").append('"').append(field.getKey()).append("\": ");
+                Object value = field.getValue();
+                json.append(value instanceof String ? "\"" + value + "\"" : format(value));
+                first = false;
+            }
+            json.append(i + 1 < rows.size() ? "},\n" : "}\n");
+        }
+        return json.append("]").toString();
+    }
+
+    private static String format(Object value) {
+        return value instanceof Double ? String.format(Locale.ROOT, "%.3f", (Double) value) : String.valueOf(value);
+    }
+}
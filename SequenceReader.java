@@ -0,0 +1,368 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+
+// FASTA/FASTQ Reader - memory-maps plain files window by window (gzip is streamed instead) and
+// hands every record to a handler as chunks of the mapped bytes, with no String per line
+final class SequenceReader {
+    static final int WINDOW_SIZE = 256 << 20;  // bytes mapped at a time
+    private static final int STREAM_BUFFER = 1 << 20;
+
+    // Receives one record at a time. The buffer ranges are only valid during the call.
+    interface RecordHandler {
+        void beginRecord(String header);
+
+        void sequence(ByteBuffer buffer, int from, int to);
+
+        default void quality(ByteBuffer buffer, int from, int to) {
+        }
+
+        void endRecord();
+    }
+
+    private SequenceReader() {
+    }
+
+    static void read(Path path, RecordHandler handler) throws IOException {
+        read(path, handler, AnalysisMonitor.NONE);
+    }
+
+    // Progress is reported in bytes of the file on disk, once per buffer or mapped window
+    static void read(Path path, RecordHandler handler, AnalysisMonitor monitor) throws IOException {
+        Parser parser = new Parser(handler);
+        long fileSize = Files.size(path);
+        if (isGzip(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                 InputStream in = new GZIPInputStream(Channels.newInputStream(channel), STREAM_BUFFER)) {
+                byte[] buffer = new byte[STREAM_BUFFER];
+                ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    monitor.checkpoint(channel.position(), fileSize);
+                    parser.parse(wrapped, 0, read);
+                }
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                for (long offset = 0; offset < size; offset += WINDOW_SIZE) {
+                    monitor.checkpoint(offset, size);
+                    int length = (int) Math.min(WINDOW_SIZE, size - offset);
+                    MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                    parser.parse(window, 0, length);
+                }
+            }
+        }
+        parser.finish();
+    }
+
+    // Packs each record as it streams past. IUPAC ambiguity codes become N; any other byte that
+    // is not A/C/G/T/U/N, e.g. a protein residue, fails the read with its offset.
+    // Files written by PackedSequenceFile are read record by record from their packed words.
+    static void forEachSequence(Path path, boolean rna, BiConsumer<String, Sequence> consumer) throws IOException {
+        forEachSequence(path, rna, consumer, AnalysisMonitor.NONE);
+    }
+
+    static void forEachSequence(Path path, boolean rna, BiConsumer<String, Sequence> consumer,
+                                AnalysisMonitor monitor) throws IOException {
+        if (PackedSequenceFile.isPackedFile(path)) {
+            try (PackedSequenceFile.Reader reader = new PackedSequenceFile.Reader(path)) {
+                List<String> names = reader.names();
+                for (int r = 0; r < names.size(); r++) {
+                    monitor.checkpoint(r, names.size());
+                    String name = names.get(r);
+                    PackedSequence packed = reader.fetchPacked(name, 0, reader.length(name));
+                    consumer.accept(name, rna ? new RNASequence(packed) : new DNASequence(packed));
+                }
+            }
+            return;
+        }
+        read(path, new RecordHandler() {
+            private String name;
+            private PackedSequence.Builder builder;
+
+            @Override
+            public void beginRecord(String header) {
+                name = recordName(header);
+                builder = new PackedSequence.Builder(rna);
+            }
+
+            @Override
+            public void sequence(ByteBuffer buffer, int from, int to) {
+                pack(builder, name, buffer, from, to);
+            }
+
+            @Override
+            public void endRecord() {
+                PackedSequence packed = builder.build();
+                consumer.accept(name, rna ? new RNASequence(packed) : new DNASequence(packed));
+                builder = null;
+            }
+        }, monitor);
+    }
+
+    // Packs only the first record and adds the name of every record to names, so the rest of the
+    // file is parsed for its headers but never packed; null when the file has no records
+    static Sequence firstSequence(Path path, boolean rna, List<String> names, AnalysisMonitor monitor) throws IOException {
+        if (PackedSequenceFile.isPackedFile(path)) {
+            try (PackedSequenceFile.Reader reader = new PackedSequenceFile.Reader(path)) {
+                names.addAll(reader.names());
+                if (names.isEmpty()) {
+                    return null;
+                }
+                String name = names.get(0);
+                PackedSequence packed = reader.fetchPacked(name, 0, reader.length(name));
+                return rna ? new RNASequence(packed) : new DNASequence(packed);
+            }
+        }
+        Sequence[] first = new Sequence[1];
+        read(path, new RecordHandler() {
+            private PackedSequence.Builder builder;
+
+            @Override
+            public void beginRecord(String header) {
+                names.add(recordName(header));
+                if (names.size() == 1) {
+                    builder = new PackedSequence.Builder(rna);
+                }
+            }
+
+            @Override
+            public void sequence(ByteBuffer buffer, int from, int to) {
+                if (builder != null) {
+                    pack(builder, names.get(0), buffer, from, to);
+                }
+            }
+
+            @Override
+            public void endRecord() {
+                if (builder != null) {
+                    PackedSequence packed = builder.build();
+                    first[0] = rna ? new RNASequence(packed) : new DNASequence(packed);
+                    builder = null;
+                }
+            }
+        }, monitor);
+        return first[0];
+    }
+
+    private static void pack(PackedSequence.Builder builder, String name, ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = (char) (buffer.get(i) & 0xFF);
+            int code = PackedSequence.codeOf(c);
+            if (code == PackedSequence.INVALID) {
+                if (!PackedSequence.isAmbiguityCode(c)) {
+                    throw new IllegalArgumentException("Invalid base '" + c + "' in record " + name
+                            + " at offset " + builder.length());
+                }
+                code = PackedSequence.N;
+            }
+            builder.appendCode(code);
+        }
+    }
+
+    static List<DNASequence> readDNA(Path path) throws IOException {
+        List<DNASequence> sequences = new ArrayList<>();
+        forEachSequence(path, false, (name, sequence) -> sequences.add((DNASequence) sequence));
+        return sequences;
+    }
+
+    // The record name is the header up to the first whitespace
+    static String recordName(String header) {
+        for (int i = 0; i < header.length(); i++) {
+            if (Character.isWhitespace(header.charAt(i))) {
+                return header.substring(0, i);
+            }
+        }
+        return header;
+    }
+
+    private static boolean isGzip(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return in.read() == 0x1F && in.read() == 0x8B;
+        }
+    }
+
+    // Byte level state machine; its state survives across windows so records may span them
+    private static final class Parser {
+        private static final int START = 0, HEADER = 1, SEQUENCE = 2, PLUS_LINE = 3, QUALITY = 4;
+
+        private final RecordHandler handler;
+        private int state = START;
+        private boolean fastq;
+        private boolean lineStart = true;
+        private boolean inRecord;
+        private byte[] header = new byte[256];
+        private int headerLength;
+        private long sequenceLength;
+        private long qualityLength;
+
+        Parser(RecordHandler handler) {
+            this.handler = handler;
+        }
+
+        void parse(ByteBuffer buffer, int from, int to) throws IOException {
+            int i = from;
+            while (i < to) {
+                switch (state) {
+                    case START:
+                        i = skipToRecord(buffer, i, to);
+                        break;
+                    case HEADER:
+                        i = readHeader(buffer, i, to);
+                        break;
+                    case SEQUENCE:
+                        i = readSequence(buffer, i, to);
+                        break;
+                    case PLUS_LINE:
+                        i = skipLine(buffer, i, to);
+                        break;
+                    default:
+                        i = readQuality(buffer, i, to);
+                        break;
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            if (state == HEADER) {
+                startRecord();
+            }
+            if (fastq && inRecord && qualityLength != sequenceLength) {
+                throw new IOException("Truncated FASTQ record " + headerString());
+            }
+            endRecord();
+        }
+
+        private int skipToRecord(ByteBuffer buffer, int i, int to) throws IOException {
+            byte b = buffer.get(i);
+            if (b == '>' || b == '@') {
+                fastq = b == '@';
+                state = HEADER;
+                headerLength = 0;
+            } else if (!Character.isWhitespace(b)) {
+                throw new IOException("Not a FASTA/FASTQ file: expected '>' or '@' but found '" + (char) b + "'");
+            }
+            return i + 1;
+        }
+
+        private int readHeader(ByteBuffer buffer, int i, int to) {
+            for (; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    startRecord();
+                    return i + 1;
+                }
+                if (b != '\r') {
+                    if (headerLength == header.length) {
+                        header = Arrays.copyOf(header, headerLength * 2);
+                    }
+                    header[headerLength++] = b;
+                }
+            }
+            return i;
+        }
+
+        private void startRecord() {
+            handler.beginRecord(headerString());
+            inRecord = true;
+            sequenceLength = 0;
+            qualityLength = 0;
+            lineStart = true;
+            state = SEQUENCE;
+        }
+
+        // Emits each run of bases between line breaks as one chunk
+        private int readSequence(ByteBuffer buffer, int i, int to) {
+            int runStart = i;
+            for (; i < to; i++) {
+                byte b = buffer.get(i);
+                if (lineStart && (fastq ? b == '+' : b == '>')) {
+                    emitSequence(buffer, runStart, i);
+                    if (b == '+') {
+                        state = PLUS_LINE;
+                    } else {
+                        endRecord();
+                        state = HEADER;
+                        headerLength = 0;
+                    }
+                    return i + 1;
+                }
+                if (b == '\n' || b == '\r') {
+                    emitSequence(buffer, runStart, i);
+                    runStart = i + 1;
+                    lineStart = b == '\n' || lineStart;
+                } else {
+                    lineStart = false;
+                }
+            }
+            emitSequence(buffer, runStart, to);
+            return to;
+        }
+
+        private void emitSequence(ByteBuffer buffer, int from, int to) {
+            if (from < to) {
+                handler.sequence(buffer, from, to);
+                sequenceLength += to - from;
+            }
+        }
+
+        private int skipLine(ByteBuffer buffer, int i, int to) {
+            for (; i < to; i++) {
+                if (buffer.get(i) == '\n') {
+                    state = QUALITY;
+                    return i + 1;
+                }
+            }
+            return to;
+        }
+
+        // Quality lines are consumed until they cover the sequence, since '@' is a valid quality
+        private int readQuality(ByteBuffer buffer, int i, int to) {
+            int runStart = i;
+            for (; i < to && qualityLength + (i - runStart) < sequenceLength; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    emitQuality(buffer, runStart, i);
+                    runStart = i + 1;
+                }
+            }
+            emitQuality(buffer, runStart, i);
+            if (qualityLength == sequenceLength) {
+                endRecord();
+                state = START;
+            }
+            return i;
+        }
+
+        private void emitQuality(ByteBuffer buffer, int from, int to) {
+            if (from < to) {
+                handler.quality(buffer, from, to);
+                qualityLength += to - from;
+            }
+        }
+
+        private void endRecord() {
+            if (inRecord) {
+                handler.endRecord();
+                inRecord = false;
+            }
+        }
+
+        private String headerString() {
+            return new String(header, 0, headerLength, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+// Nucleotide Statistics - validation, base counts, GC content and skews from one table-driven pass
+final class SequenceStats {
+    static final int A = 0, C = 1, G = 2, T = 3, N = 4, INVALID = 5;  // T doubles as U for RNA
+
+    private static final byte[] DNA_CLASSES = classTable('T');
+    private static final byte[] RNA_CLASSES = classTable('U');
+
+    private final boolean rna;
+    private final long length;
+    private final long[] counts;
+    private final long firstNOffset;
+    private final long firstInvalidOffset;
+    private final char firstInvalidChar;
+
+    private SequenceStats(boolean rna, long length, long[] counts, long firstNOffset, long firstInvalidOffset, char firstInvalidChar) {
+        this.rna = rna;
+        this.length = length;
+        this.counts = counts;
+        this.firstNOffset = firstNOffset;
+        this.firstInvalidOffset = firstInvalidOffset;
+        this.firstInvalidChar = firstInvalidChar;
+    }
+
+    // Only upper case A/C/G and T (DNA) or U (RNA) are valid, as in validateSequence; N is counted
+    // separately but still makes the sequence invalid
+    static byte[] classTable(char fourthBase) {
+        byte[] classes = new byte[128];
+        Arrays.fill(classes, (byte) INVALID);
+        classes['A'] = A;
+        classes['C'] = C;
+        classes['G'] = G;
+        classes[fourthBase] = T;
+        classes['N'] = N;
+        return classes;
+    }
+
+    static SequenceStats of(CharSequence sequence, boolean rna) {
+        return of(sequence, 0, sequence.length(), rna);
+    }
+
+    static SequenceStats of(CharSequence sequence, int from, int to, boolean rna) {
+        return of(sequence, from, to, rna, AnalysisMonitor.NONE);
+    }
+
+    // Statistics of [from, to); offsets stay relative to the whole sequence so ranges can be merged
+    static SequenceStats of(CharSequence sequence, int from, int to, boolean rna, AnalysisMonitor monitor) {
+        byte[] classes = rna ? RNA_CLASSES : DNA_CLASSES;
+        int a = 0, c = 0, g = 0, t = 0, n = 0, invalid = 0;
+        int firstN = -1;
+        int firstInvalid = -1;
+        for (int i = from; i < to; i++) {
+            if (((i - from) & (AnalysisMonitor.CHECK_INTERVAL - 1)) == 0) {
+                monitor.checkpoint(i - from, to - from);
+            }
+            char ch = sequence.charAt(i);
+            int cls = ch < 128 ? classes[ch] : INVALID;
+            switch (cls) {
+                case A: a++; break;
+                case C: c++; break;
+                case G: g++; break;
+                case T: t++; break;
+                case N:
+                    if (n++ == 0) {
+                        firstN = i;
+                    }
+                    break;
+                default:
+                    if (invalid++ == 0) {
+                        firstInvalid = i;
+                    }
+            }
+        }
+        char invalidChar = firstInvalid >= 0 ? sequence.charAt(firstInvalid) : 0;
+        return new SequenceStats(rna, to - from, new long[]{a, c, g, t, n, invalid}, firstN, firstInvalid, invalidChar);
+    }
+
+    // Packed sequences can only hold bases and N, so the counts come straight from the word kernel
+    static SequenceStats of(PackedSequence packed) {
+        return ofCounts(packed, packed.counts());
+    }
+
+    // counts of the packed sequence indexed A, C, G, T, N, e.g. as returned by PackedSequence.counts;
+    // the first N is the start of the first N run
+    static SequenceStats ofCounts(PackedSequence packed, long[] counts) {
+        long firstN = packed.ambiguousCount() > 0 ? packed.ambiguousStarts()[0] : -1;
+        return ofCounts(packed.isRNA(), packed.length(), counts, firstN);
+    }
+
+    // counts indexed A, C, G, T, N of a sequence without invalid characters
+    static SequenceStats ofCounts(boolean rna, long length, long[] counts, long firstNOffset) {
+        return new SequenceStats(rna, length, Arrays.copyOf(counts, INVALID + 1), firstNOffset, -1, (char) 0);
+    }
+
+    // Combines the statistics of two adjacent ranges, this one first
+    SequenceStats merge(SequenceStats next) {
+        long[] sum = new long[counts.length];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = counts[i] + next.counts[i];
+        }
+        boolean useNext = firstInvalidOffset < 0;
+        return new SequenceStats(rna, length + next.length, sum,
+                firstNOffset >= 0 ? firstNOffset : next.firstNOffset,
+                useNext ? next.firstInvalidOffset : firstInvalidOffset,
+                useNext ? next.firstInvalidChar : firstInvalidChar);
+    }
+
+    // Same rule as the regex it replaces: non-empty and nothing but the four bases
+    boolean isValid() {
+        return length > 0 && counts[N] == 0 && counts[INVALID] == 0;
+    }
+
+    // The same, but N is accepted as well when allowN is set, as SequenceValidator.ALLOW_N
+    boolean isValid(boolean allowN) {
+        return length > 0 && (allowN || counts[N] == 0) && counts[INVALID] == 0;
+    }
+
+    boolean isRNA() {
+        return rna;
+    }
+
+    long length() {
+        return length;
+    }
+
+    long count(int base) {
+        return counts[base];
+    }
+
+    long invalidCount() {
+        return counts[INVALID];
+    }
+
+    // -1 when there is no N
+    long firstNOffset() {
+        return firstNOffset;
+    }
+
+    // -1 when there is no invalid character; N is reported through firstNOffset instead
+    long firstInvalidOffset() {
+        return firstInvalidOffset;
+    }
+
+    char firstInvalidChar() {
+        return firstInvalidChar;
+    }
+
+    // Percentage over the whole length, like calculateGCContent
+    double gcContent() {
+        return ((counts[G] + counts[C]) / (double) length) * 100;
+    }
+
+    // (G - C) / (G + C), 0 when there are no G or C bases
+    double gcSkew() {
+        long total = counts[G] + counts[C];
+        return total == 0 ? 0 : (counts[G] - counts[C]) / (double) total;
+    }
+
+    // (A - T) / (A + T), with U in place of T for RNA
+    double atSkew() {
+        long total = counts[A] + counts[T];
+        return total == 0 ? 0 : (counts[A] - counts[T]) / (double) total;
+    }
+
+    // Message for the first problem found, for showing next to an "Invalid sequence" error
+    String describeProblem() {
+        if (length == 0) {
+            return "Sequence is empty";
+        }
+        if (firstInvalidOffset >= 0) {
+            return "Invalid base '" + firstInvalidChar + "' at position " + (firstInvalidOffset + 1);
+        }
+        if (counts[N] > 0) {
+            return counts[N] + " ambiguous (N) bases, the first at position " + (firstNOffset + 1);
+        }
+        return "";
+    }
+}
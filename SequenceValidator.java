@@ -0,0 +1,157 @@
+import java.util.Arrays;
+
+// Sequence Validator - one pass over a 128-entry character class table. The pass records the count
+// and first position of every class, so the strict check and each lenient mode are answered from
+// the same result without rescanning.
+final class SequenceValidator {
+    static final int DNA = 0, RNA = 1, PROTEIN = 2;  // alphabets
+
+    // Modes, combined with |
+    static final int STRICT = 0;
+    static final int ALLOW_SOFT_MASKED = 1;  // lower case letters of the alphabet
+    static final int ALLOW_N = 2;  // N (and n when soft masking is allowed) in DNA and RNA
+
+    // Character classes
+    static final int BASE = 0, SOFT_MASKED = 1, N = 2, SOFT_MASKED_N = 3, INVALID = 4;
+    private static final int CLASSES = 5;
+
+    private static final byte[][] TABLES = {
+            classTable("ACGT", true),
+            classTable("ACGU", true),
+            classTable("ACDEFGHIKLMNPQRSTVWY", false)};  // N is asparagine here
+
+    private SequenceValidator() {
+    }
+
+    private static byte[] classTable(String alphabet, boolean nucleotide) {
+        byte[] classes = new byte[128];
+        Arrays.fill(classes, (byte) INVALID);
+        for (char c : alphabet.toCharArray()) {
+            classes[c] = BASE;
+            classes[Character.toLowerCase(c)] = SOFT_MASKED;
+        }
+        if (nucleotide) {
+            classes['N'] = N;
+            classes['n'] = SOFT_MASKED_N;
+        }
+        return classes;
+    }
+
+    static Result validate(CharSequence sequence, int alphabet) {
+        byte[] classes = TABLES[alphabet];
+        int length = sequence.length();
+        int[] counts = new int[CLASSES];
+        int[] first = new int[CLASSES];
+        Arrays.fill(first, -1);
+        for (int i = 0; i < length; i++) {
+            char ch = sequence.charAt(i);
+            int cls = ch < 128 ? classes[ch] : INVALID;
+            if (counts[cls]++ == 0) {
+                first[cls] = i;
+            }
+        }
+        char[] firstChar = new char[CLASSES];
+        for (int cls = 0; cls < CLASSES; cls++) {
+            firstChar[cls] = first[cls] >= 0 ? sequence.charAt(first[cls]) : 0;
+        }
+        return new Result(length, counts, first, firstChar);
+    }
+
+    // Packed sequences only hold upper case bases and N runs
+    static Result validate(PackedSequence packed) {
+        int[] counts = new int[CLASSES];
+        int[] first = new int[CLASSES];
+        char[] firstChar = new char[CLASSES];
+        Arrays.fill(first, -1);
+        counts[N] = packed.ambiguousCount();
+        counts[BASE] = packed.length() - counts[N];
+        if (counts[N] > 0) {
+            first[N] = packed.ambiguousStarts()[0];
+            firstChar[N] = 'N';
+        }
+        if (counts[BASE] > 0) {
+            first[BASE] = counts[N] > 0 && first[N] == 0 ? packed.ambiguousLengths()[0] : 0;
+            firstChar[BASE] = packed.charAt(first[BASE]);
+        }
+        return new Result(packed.length(), counts, first, firstChar);
+    }
+
+    // Counts and first positions per class, interpreted per mode
+    static final class Result {
+        private final int length;
+        private final int[] counts;
+        private final int[] first;
+        private final char[] firstChar;
+
+        private Result(int length, int[] counts, int[] first, char[] firstChar) {
+            this.length = length;
+            this.counts = counts;
+            this.first = first;
+            this.firstChar = firstChar;
+        }
+
+        int length() {
+            return length;
+        }
+
+        int count(int cls) {
+            return counts[cls];
+        }
+
+        // Offset of the first character of the class, or -1
+        int firstOffset(int cls) {
+            return first[cls];
+        }
+
+        // Non-empty and every character allowed by the mode
+        boolean isValid(int mode) {
+            return length > 0 && firstInvalidClass(mode) < 0;
+        }
+
+        // Offset of the first character the mode rejects, or -1
+        int firstInvalidOffset(int mode) {
+            int cls = firstInvalidClass(mode);
+            return cls < 0 ? -1 : first[cls];
+        }
+
+        char firstInvalidChar(int mode) {
+            int cls = firstInvalidClass(mode);
+            return cls < 0 ? 0 : firstChar[cls];
+        }
+
+        // Why the sequence fails the mode, or null when it passes
+        String describeProblem(int mode) {
+            if (length == 0) {
+                return "Sequence is empty.";
+            }
+            int cls = firstInvalidClass(mode);
+            if (cls < 0) {
+                return null;
+            }
+            return "Invalid character '" + firstChar[cls] + "' at position " + (first[cls] + 1) + ".";
+        }
+
+        private int firstInvalidClass(int mode) {
+            int earliest = -1;
+            for (int cls = SOFT_MASKED; cls < CLASSES; cls++) {
+                if (counts[cls] > 0 && !allows(mode, cls) && (earliest < 0 || first[cls] < first[earliest])) {
+                    earliest = cls;
+                }
+            }
+            return earliest;
+        }
+
+        private static boolean allows(int mode, int cls) {
+            switch (cls) {
+                case SOFT_MASKED:
+                    return (mode & ALLOW_SOFT_MASKED) != 0;
+                case N:
+                    return (mode & ALLOW_N) != 0;
+                case SOFT_MASKED_N:
+                    return (mode & ALLOW_N) != 0 && (mode & ALLOW_SOFT_MASKED) != 0;
+                default:
+                    return false;
+            }
+        }
+    }
+}
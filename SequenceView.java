@@ -0,0 +1,172 @@
+// Sequence View - a window [offset, offset + length) over shared text or a PackedSequence, read
+// either as is or as the reverse complement strand. Slicing and strand flips only create a new
+// view; nothing is copied until toString, toBytes or toCodes is called, and a Sequence over a
+// view validates it only when first asked.
+final class SequenceView implements CharSequence {
+    private static final char[] COMPLEMENT = new char[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            COMPLEMENT[c] = c;
+        }
+        String pairs = "TAUACGGCNNtauacggcnn";  // A pairs with T or U depending on the strand type, see complement
+        for (int i = 0; i < pairs.length(); i += 2) {
+            COMPLEMENT[pairs.charAt(i)] = pairs.charAt(i + 1);
+        }
+    }
+
+    private final CharSequence text;  // exactly one of text and packed is set
+    private final PackedSequence packed;
+    private final int offset;
+    private final int length;
+    private final boolean reverse;  // reads the reverse complement of the window
+    private final boolean rna;  // A complements to U instead of T
+
+    private SequenceView(CharSequence text, PackedSequence packed, int offset, int length, boolean reverse, boolean rna) {
+        this.text = text;
+        this.packed = packed;
+        this.offset = offset;
+        this.length = length;
+        this.reverse = reverse;
+        this.rna = rna;
+    }
+
+    static SequenceView of(CharSequence text, boolean rna) {
+        return new SequenceView(text, null, 0, text.length(), false, rna);
+    }
+
+    static SequenceView of(PackedSequence packed) {
+        return new SequenceView(null, packed, 0, packed.length(), false, packed.isRNA());
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    boolean isRNA() {
+        return rna;
+    }
+
+    boolean isReverseComplement() {
+        return reverse;
+    }
+
+    // Backing store position of view position i
+    private int position(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range for length " + length);
+        }
+        return reverse ? offset + length - 1 - index : offset + index;
+    }
+
+    @Override
+    public char charAt(int index) {
+        int position = position(index);
+        char c = packed != null ? packed.charAt(position) : text.charAt(position);
+        return reverse ? complement(c) : c;
+    }
+
+    private char complement(char c) {
+        if (c == 'A' || c == 'a') {
+            char pair = rna ? 'U' : 'T';
+            return c == 'A' ? pair : Character.toLowerCase(pair);
+        }
+        return c < 128 ? COMPLEMENT[c] : c;
+    }
+
+    // ASCII byte at index; characters outside ASCII read as '?'
+    byte byteAt(int index) {
+        char c = charAt(index);
+        return c < 128 ? (byte) c : (byte) '?';
+    }
+
+    // Base code at index as in PackedSequence (A0 C1 G2 T3 N4 INVALID5)
+    int codeAt(int index) {
+        if (packed != null) {
+            int code = packed.codeAt(position(index));
+            return reverse && code < PackedSequence.N ? 3 - code : code;
+        }
+        return PackedSequence.codeOf(charAt(index));
+    }
+
+    // The view's range [from, to), sharing the backing store
+    @Override
+    public SequenceView subSequence(int from, int to) {
+        return slice(from, to);
+    }
+
+    SequenceView slice(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of range for length " + length);
+        }
+        int start = reverse ? offset + length - to : offset + from;
+        return new SequenceView(text, packed, start, to - from, reverse, rna);
+    }
+
+    // The other strand of the same window, read 5' to 3'
+    SequenceView reverseComplement() {
+        return new SequenceView(text, packed, offset, length, !reverse, rna);
+    }
+
+    // Writes the codes of the whole view into dst starting at dstOffset
+    void codes(byte[] dst, int dstOffset) {
+        codes(0, length, dst, dstOffset);
+    }
+
+    // Writes the codes of view positions [from, to) into dst starting at dstOffset
+    void codes(int from, int to, byte[] dst, int dstOffset) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of range for length " + length);
+        }
+        if (packed == null) {
+            for (int i = from; i < to; i++) {
+                dst[dstOffset + i - from] = (byte) PackedSequence.codeOf(charAt(i));
+            }
+            return;
+        }
+        int start = reverse ? offset + length - to : offset + from;  // the range in the packed store
+        int end = start + to - from;
+        for (int p = start; p < end; p++) {
+            int code = packed.rawCode(p);
+            dst[dstOffset + (reverse ? end - 1 - p : p - start)] = (byte) (reverse ? 3 - code : code);
+        }
+        int[] starts = packed.ambiguousStarts();
+        int[] lengths = packed.ambiguousLengths();
+        for (int r = 0; r < starts.length; r++) {
+            for (int p = Math.max(starts[r], start); p < Math.min(starts[r] + lengths[r], end); p++) {
+                dst[dstOffset + (reverse ? end - 1 - p : p - start)] = PackedSequence.N;
+            }
+        }
+    }
+
+    byte[] toCodes() {
+        byte[] codes = new byte[length];
+        codes(codes, 0);
+        return codes;
+    }
+
+    void bytes(byte[] dst, int dstOffset) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = byteAt(i);
+        }
+    }
+
+    byte[] toBytes() {
+        byte[] bytes = new byte[length];
+        bytes(bytes, 0);
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        if (!reverse && text != null) {
+            return text.subSequence(offset, offset + length).toString();
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            out.append(charAt(i));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,25 @@
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.management.ManagementFactory;
+import javax.swing.SwingUtilities;
+
+// Startup Timer - reports the time to the first interactive frame: the window has opened and the
+// EDT has worked through the events queued up to that point, including the first paint
+final class StartupTimer {
+    private StartupTimer() {
+    }
+
+    // startNanos is System.nanoTime() taken at the top of main
+    static void reportWhenInteractive(Window window, String name, long startNanos) {
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                window.removeWindowListener(this);
+                SwingUtilities.invokeLater(() -> System.out.printf("%s interactive after %d ms (%d ms since JVM start)%n",
+                        name, (System.nanoTime() - startNanos) / 1_000_000,
+                        ManagementFactory.getRuntimeMXBean().getUptime()));
+            }
+        });
+    }
+}
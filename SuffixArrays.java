@@ -0,0 +1,124 @@
+import java.util.Arrays;
+
+// Suffix array construction by induced sorting (SA-IS), linear time in the text length
+final class SuffixArrays {
+    private SuffixArrays() {
+    }
+
+    // text values must lie in [0, upper]
+    static int[] sais(int[] text, int upper) {
+        int n = text.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        if (n == 1) {
+            return new int[]{0};
+        }
+        if (n == 2) {
+            return text[0] < text[1] ? new int[]{0, 1} : new int[]{1, 0};
+        }
+        int[] sa = new int[n];
+        boolean[] sType = new boolean[n];
+        for (int i = n - 2; i >= 0; i--) {
+            sType[i] = text[i] == text[i + 1] ? sType[i + 1] : text[i] < text[i + 1];
+        }
+        int[] sumL = new int[upper + 1];
+        int[] sumS = new int[upper + 1];
+        for (int i = 0; i < n; i++) {
+            if (!sType[i]) {
+                sumS[text[i]]++;
+            } else {
+                sumL[text[i] + 1]++;
+            }
+        }
+        for (int i = 0; i <= upper; i++) {
+            sumS[i] += sumL[i];
+            if (i < upper) {
+                sumL[i + 1] += sumS[i];
+            }
+        }
+
+        int[] lmsMap = new int[n + 1];
+        Arrays.fill(lmsMap, -1);
+        int m = 0;
+        for (int i = 1; i < n; i++) {
+            if (!sType[i - 1] && sType[i]) {
+                lmsMap[i] = m++;
+            }
+        }
+        int[] lms = new int[m];
+        for (int i = 1, k = 0; i < n; i++) {
+            if (!sType[i - 1] && sType[i]) {
+                lms[k++] = i;
+            }
+        }
+        induce(text, sa, sType, sumL, sumS, lms);
+
+        if (m > 0) {
+            int[] sortedLms = new int[m];
+            for (int i = 0, k = 0; i < n; i++) {
+                if (lmsMap[sa[i]] != -1) {
+                    sortedLms[k++] = sa[i];
+                }
+            }
+            // name LMS substrings; equal substrings share a name and are sorted recursively
+            int[] reduced = new int[m];
+            int names = 0;
+            reduced[lmsMap[sortedLms[0]]] = 0;
+            for (int i = 1; i < m; i++) {
+                int l = sortedLms[i - 1];
+                int r = sortedLms[i];
+                int endL = lmsMap[l] + 1 < m ? lms[lmsMap[l] + 1] : n;
+                int endR = lmsMap[r] + 1 < m ? lms[lmsMap[r] + 1] : n;
+                boolean same = true;
+                if (endL - l != endR - r) {
+                    same = false;
+                } else {
+                    while (l < endL && text[l] == text[r]) {
+                        l++;
+                        r++;
+                    }
+                    if (l == n || text[l] != text[r]) {
+                        same = false;
+                    }
+                }
+                if (!same) {
+                    names++;
+                }
+                reduced[lmsMap[sortedLms[i]]] = names;
+            }
+            int[] reducedSa = sais(reduced, names);
+            for (int i = 0; i < m; i++) {
+                sortedLms[i] = lms[reducedSa[i]];
+            }
+            induce(text, sa, sType, sumL, sumS, sortedLms);
+        }
+        return sa;
+    }
+
+    private static void induce(int[] text, int[] sa, boolean[] sType, int[] sumL, int[] sumS, int[] lms) {
+        int n = text.length;
+        Arrays.fill(sa, -1);
+        int[] bucket = sumS.clone();
+        for (int d : lms) {
+            if (d != n) {
+                sa[bucket[text[d]]++] = d;
+            }
+        }
+        bucket = sumL.clone();
+        sa[bucket[text[n - 1]]++] = n - 1;
+        for (int i = 0; i < n; i++) {
+            int v = sa[i];
+            if (v >= 1 && !sType[v - 1]) {
+                sa[bucket[text[v - 1]]++] = v - 1;
+            }
+        }
+        bucket = sumL.clone();
+        for (int i = n - 1; i >= 0; i--) {
+            int v = sa[i];
+            if (v >= 1 && sType[v - 1]) {
+                sa[--bucket[text[v - 1] + 1]] = v - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Translation Engine - translates base codes (see Sequence.toCodes) through a GeneticCode, in
+// one frame or in all six frames at once, and finds open reading frames
+final class Translator {
+    private final GeneticCode code;
+
+    Translator(GeneticCode code) {
+        this.code = code;
+    }
+
+    // Translates from the first base until the first stop codon; codons with N become X
+    byte[] translate(byte[] codes) {
+        return translate(codes, AnalysisMonitor.NONE);
+    }
+
+    byte[] translate(byte[] codes, AnalysisMonitor monitor) {
+        byte[] protein = new byte[codes.length / 3];
+        int length = 0;
+        for (int i = 0; i + 2 < codes.length; i += 3) {
+            if (length % AnalysisMonitor.CHECK_INTERVAL == 0) {
+                monitor.checkpoint(i, codes.length);
+            }
+            int c1 = codes[i], c2 = codes[i + 1], c3 = codes[i + 2];
+            byte aminoAcid = (c1 | c2 | c3) > PackedSequence.T ? GeneticCode.UNKNOWN : code.translate(c1 << 4 | c2 << 2 | c3);
+            if (aminoAcid == GeneticCode.STOP) {
+                break;
+            }
+            protein[length++] = aminoAcid;
+        }
+        return Arrays.copyOf(protein, length);
+    }
+
+    // Frames 0-2 read the forward strand from offset 0, 1 and 2; frames 3-5 read the reverse
+    // complement from offset 0, 1 and 2 of that strand. Stops are kept as '*'.
+    byte[][] translateSixFrames(byte[] codes) {
+        return translateSixFrames(codes, AnalysisMonitor.NONE);
+    }
+
+    byte[][] translateSixFrames(byte[] codes, AnalysisMonitor monitor) {
+        int n = codes.length;
+        byte[][] frames = new byte[6][];
+        for (int f = 0; f < 3; f++) {
+            frames[f] = new byte[Math.max(0, (n - f) / 3)];
+            frames[3 + f] = new byte[Math.max(0, (n - f) / 3)];
+        }
+        int forward = 0;
+        int reverse = 0;
+        int valid = 0;  // bases since the last N, a codon is only known when this reaches 3
+        for (int i = 0; i < n; i++) {
+            if ((i & (AnalysisMonitor.CHECK_INTERVAL - 1)) == 0) {
+                monitor.checkpoint(i, n);
+            }
+            int c = codes[i];
+            if (c > PackedSequence.T) {
+                valid = 0;
+                c = 0;
+            } else {
+                valid++;
+            }
+            forward = ((forward << 2) | c) & 63;
+            reverse = (reverse >>> 2) | ((3 - c) << 4);
+            if (i < 2) {
+                continue;
+            }
+            int start = i - 2;
+            boolean known = valid >= 3;
+            int forwardFrame = start % 3;
+            frames[forwardFrame][start / 3] = known ? code.translate(forward) : GeneticCode.UNKNOWN;
+            // the same three bases, read on the reverse strand, end at distance n - 1 - i from its start
+            int reverseStart = n - 1 - i;
+            int reverseFrame = reverseStart % 3;
+            frames[3 + reverseFrame][reverseStart / 3] = known ? code.translate(reverse) : GeneticCode.UNKNOWN;
+        }
+        return frames;
+    }
+
+    // ORFs from an ATG to the next in-frame stop on both strands, at least minLength amino acids
+    // long (stop excluded). Each stop ends one ORF that starts at the first ATG after the previous stop.
+    List<Orf> findOrfs(byte[] codes, int minLength) {
+        return findOrfs(codes, minLength, AnalysisMonitor.NONE);
+    }
+
+    List<Orf> findOrfs(byte[] codes, int minLength, AnalysisMonitor monitor) {
+        int n = codes.length;
+        byte[][] frames = translateSixFrames(codes, monitor);
+        byte[] startCodon = startMarkers(codes);
+        List<Orf> orfs = new ArrayList<>();
+        for (int frame = 0; frame < 6; frame++) {
+            byte[] protein = frames[frame];
+            int orfStart = -1;
+            for (int k = 0; k < protein.length; k++) {
+                int offset = (frame % 3) + 3 * k;  // codon start on its own strand
+                if (orfStart < 0 && isStart(startCodon, frame, offset, n)) {
+                    orfStart = k;
+                }
+                if (protein[k] == GeneticCode.STOP && orfStart >= 0) {
+                    int aminoAcids = k - orfStart;
+                    if (aminoAcids >= minLength) {
+                        int strandStart = (frame % 3) + 3 * orfStart;
+                        int strandEnd = offset + 3;
+                        boolean forward = frame < 3;
+                        orfs.add(new Orf(forward, frame,
+                                forward ? strandStart : n - strandEnd,
+                                forward ? strandEnd : n - strandStart,
+                                Arrays.copyOfRange(protein, orfStart, k)));
+                    }
+                    orfStart = -1;
+                }
+            }
+        }
+        return orfs;
+    }
+
+    // Bit 0 marks a forward ATG starting at i, bit 1 a reverse strand ATG (CAT) ending at i + 2
+    private static byte[] startMarkers(byte[] codes) {
+        byte[] markers = new byte[codes.length];
+        for (int i = 0; i + 2 < codes.length; i++) {
+            int c1 = codes[i], c2 = codes[i + 1], c3 = codes[i + 2];
+            if ((c1 | c2 | c3) > PackedSequence.T) {
+                continue;
+            }
+            int codon = c1 << 4 | c2 << 2 | c3;
+            if (codon == GeneticCode.START_CODON) {
+                markers[i] |= 1;
+            }
+            if ((63 - reverseCodon(codon)) == GeneticCode.START_CODON) {
+                markers[i + 2] |= 2;
+            }
+        }
+        return markers;
+    }
+
+    private static boolean isStart(byte[] markers, int frame, int offset, int n) {
+        if (frame < 3) {
+            return (markers[offset] & 1) != 0;
+        }
+        return (markers[n - 1 - offset] & 2) != 0;
+    }
+
+    // Reverses the order of the three bases in a codon index
+    private static int reverseCodon(int codon) {
+        return (codon & 3) << 4 | (codon & 12) | codon >>> 4;
+    }
+
+    static ProteinSequence toProtein(byte[] aminoAcids) {
+        return new ProteinSequence(new String(aminoAcids, StandardCharsets.US_ASCII));
+    }
+
+    // One open reading frame; start/end are 0-based forward strand coordinates, end exclusive
+    static final class Orf {
+        private final boolean forward;
+        private final int frame;
+        private final int start;
+        private final int end;
+        private final byte[] protein;
+
+        Orf(boolean forward, int frame, int start, int end, byte[] protein) {
+            this.forward = forward;
+            this.frame = frame;
+            this.start = start;
+            this.end = end;
+            this.protein = protein;
+        }
+
+        boolean isForward() {
+            return forward;
+        }
+
+        int frame() {
+            return frame;
+        }
+
+        int start() {
+            return start;
+        }
+
+        int end() {
+            return end;
+        }
+
+        int proteinLength() {
+            return protein.length;
+        }
+
+        ProteinSequence protein() {
+            return toProtein(protein);
+        }
+    }
+}
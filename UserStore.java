@@ -0,0 +1,113 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// User Store - login and sign-up queries on pooled connections, run on a small worker pool so
+// callers (the Swing EDT in particular) never wait on the database.
+//
+// The connection comes from system properties, so an embedded database can stand in for MySQL:
+//   -Dgenealchemy.db.url=jdbc:h2:mem:test -Dgenealchemy.db.user=sa -Dgenealchemy.db.password=
+//   -Dgenealchemy.db.poolSize=4 -Dgenealchemy.db.timeoutSeconds=5
+final class UserStore implements AutoCloseable {
+    static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/GeneAlchemyDB";
+
+    private static final String LOGIN_QUERY = "SELECT 1 FROM users WHERE username = ? AND password = ?";
+    private static final String SIGN_UP_QUERY = "INSERT INTO users (username, password) VALUES (?, ?)";
+
+    private static final Metrics.Operation WARM_UP = Metrics.operation("UserStore.warmUp");
+    private static final Metrics.Operation LOGIN = Metrics.operation("UserStore.validateLogin");
+    private static final Metrics.Operation SIGN_UP = Metrics.operation("UserStore.signUp");
+
+    private final ConnectionPool pool;
+    private final ExecutorService workers;
+
+    UserStore(ConnectionPool pool, int workerCount) {
+        this.pool = pool;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workerCount, workerCount, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "user-store");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.workers = executor;
+    }
+
+    static UserStore fromSystemProperties() {
+        int poolSize = Integer.getInteger("genealchemy.db.poolSize", 2);
+        ConnectionPool pool = new ConnectionPool(
+                System.getProperty("genealchemy.db.url", DEFAULT_URL),
+                System.getProperty("genealchemy.db.user", "root"),
+                System.getProperty("genealchemy.db.password", "Nandana17!"),
+                poolSize,
+                Integer.getInteger("genealchemy.db.timeoutSeconds", 5));
+        return new UserStore(pool, poolSize);
+    }
+
+    // Opens one pooled connection in the background so the first login does not pay for it
+    CompletableFuture<Void> warmUp() {
+        return CompletableFuture.runAsync(() -> WARM_UP.time(1, () -> {
+            try {
+                pool.borrow().close();  // borrowing opens and validates the connection, closing the lease keeps it idle
+                return null;
+            } catch (SQLException ex) {
+                throw new CompletionException(ex);
+            }
+        }), workers);
+    }
+
+    // Completes with true when the username and password match a user
+    CompletableFuture<Boolean> validateLogin(String username, String password) {
+        // Latency includes waiting for a pooled connection but not for a worker
+        return CompletableFuture.supplyAsync(() -> LOGIN.time(1, () -> {
+            try (ConnectionPool.Lease lease = pool.borrow()) {
+                try {
+                    PreparedStatement statement = lease.prepare(LOGIN_QUERY);
+                    statement.setMaxRows(1);
+                    statement.setString(1, username);
+                    statement.setString(2, password);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        return rs.next();
+                    }
+                } catch (SQLException ex) {
+                    lease.failed(ex);
+                    throw ex;
+                }
+            } catch (SQLException ex) {
+                throw new CompletionException(ex);
+            }
+        }), workers);
+    }
+
+    // Completes normally once the user is inserted; fails with the SQLException otherwise
+    CompletableFuture<Void> signUp(String username, String password) {
+        return CompletableFuture.runAsync(() -> SIGN_UP.time(1, () -> {
+            try (ConnectionPool.Lease lease = pool.borrow()) {
+                try {
+                    PreparedStatement statement = lease.prepare(SIGN_UP_QUERY);
+                    statement.setString(1, username);
+                    statement.setString(2, password);
+                    statement.executeUpdate();
+                    return null;
+                } catch (SQLException ex) {
+                    lease.failed(ex);
+                    throw ex;
+                }
+            } catch (SQLException ex) {
+                throw new CompletionException(ex);
+            }
+        }), workers);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        pool.close();
+    }
+}
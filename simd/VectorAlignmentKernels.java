@@ -0,0 +1,105 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API implementation of AlignmentKernels: Farrar's striped Smith-Waterman. The query is cut
+// into LANES segments that are scored side by side, so lane k of vector j holds query position
+// k * segments + j. Gaps that cross from one segment into the next are fixed up by the lazy F
+// loop, which usually stops after a vector or two. Loaded reflectively like VectorBaseKernels.
+final class VectorAlignmentKernels extends AlignmentKernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    VectorAlignmentKernels() {
+        if (LANES < 4) {
+            throw new UnsupportedOperationException("Vectors of " + LANES + " ints are no faster than the scalar path");
+        }
+    }
+
+    // Per residue of the matrix, the striped scores of every query position against it
+    private static final class Striped extends Profile {
+        final int segments;
+        final int[][] scores;
+
+        Striped(byte[] query, ScoringMatrix matrix) {
+            super(query, matrix);
+            segments = Math.max(1, (query.length + LANES - 1) / LANES);
+            scores = new int[matrix.size()][segments * LANES];
+            for (int r = 0; r < matrix.size(); r++) {
+                for (int j = 0; j < segments; j++) {
+                    for (int k = 0; k < LANES; k++) {
+                        int position = k * segments + j;
+                        scores[r][j * LANES + k] = position < query.length ? matrix.score(query[position], r) : NEG;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    Profile profile(byte[] query, ScoringMatrix matrix) {
+        return new Striped(query, matrix);
+    }
+
+    // Moves every lane up by one and fills lane 0
+    private static IntVector shift(IntVector v, IntVector fill) {
+        return fill.slice(LANES - 1, v);
+    }
+
+    @Override
+    int localScore(Profile profile, byte[] target) {
+        Striped striped = (Striped) profile;
+        int segments = striped.segments;
+        int[] hStore = new int[segments * LANES];
+        int[] hLoad = new int[segments * LANES];
+        int[] e = new int[segments * LANES];
+        IntVector zero = IntVector.zero(SPECIES);
+        IntVector negative = IntVector.broadcast(SPECIES, NEG);
+        IntVector open = IntVector.broadcast(SPECIES, striped.matrix.firstGap());
+        IntVector extend = IntVector.broadcast(SPECIES, striped.matrix.gapExtend());
+        IntVector best = zero;
+        for (byte residue : target) {
+            int[] scores = striped.scores[residue];
+            IntVector f = negative;
+            IntVector h = shift(IntVector.fromArray(SPECIES, hStore, (segments - 1) * LANES), zero);
+            int[] swap = hLoad;
+            hLoad = hStore;
+            hStore = swap;
+            for (int j = 0; j < segments; j++) {
+                int at = j * LANES;
+                IntVector ej = IntVector.fromArray(SPECIES, e, at);
+                h = h.add(IntVector.fromArray(SPECIES, scores, at)).max(ej).max(f).max(zero);
+                best = best.max(h);
+                h.intoArray(hStore, at);
+                IntVector hOpen = h.sub(open);
+                ej.sub(extend).max(hOpen).intoArray(e, at);
+                f = f.sub(extend).max(hOpen);
+                h = IntVector.fromArray(SPECIES, hLoad, at);
+            }
+            // Lazy F: carry gaps across segment boundaries until no lane can still improve H
+            f = shift(f, negative);
+            for (int j = 0; ; ) {
+                int at = j * LANES;
+                IntVector hj = IntVector.fromArray(SPECIES, hStore, at);
+                if (!f.compare(VectorOperators.GT, hj.sub(open)).anyTrue()) {
+                    break;
+                }
+                hj = hj.max(f);
+                hj.intoArray(hStore, at);
+                best = best.max(hj);
+                IntVector.fromArray(SPECIES, e, at).max(hj.sub(open)).intoArray(e, at);
+                f = f.sub(extend);
+                if (++j == segments) {
+                    j = 0;
+                    f = shift(f, negative);
+                }
+            }
+        }
+        return best.reduceLanes(VectorOperators.MAX);
+    }
+
+    @Override
+    String name() {
+        return "striped " + LANES + " x int";
+    }
+}
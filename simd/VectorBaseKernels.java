@@ -0,0 +1,85 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API implementation of BaseKernels; loaded reflectively, so a missing incubator module
+// fails class initialisation here and BaseKernels falls back to the scalar kernels
+final class VectorBaseKernels extends BaseKernels {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final VectorShuffle<Byte> REVERSE = VectorShuffle.fromOp(SPECIES, lane -> LANES - 1 - lane);
+
+    VectorBaseKernels() {
+        if (LANES < 16) {
+            throw new UnsupportedOperationException("Vectors of " + LANES + " bytes are no faster than the scalar path");
+        }
+    }
+
+    // A <-> T is xor 0x15 and C <-> G is xor 0x04 in ASCII; other lower case letters lose 0x20
+    private static ByteVector complement(ByteVector v) {
+        VectorMask<Byte> at = v.eq((byte) 'A').or(v.eq((byte) 'T'));
+        VectorMask<Byte> cg = v.eq((byte) 'C').or(v.eq((byte) 'G'));
+        VectorMask<Byte> lower = v.compare(VectorOperators.GE, (byte) 'a').and(v.compare(VectorOperators.LE, (byte) 'z'));
+        return v.lanewise(VectorOperators.XOR, (byte) 0x15, at)
+                .lanewise(VectorOperators.XOR, (byte) 0x04, cg)
+                .lanewise(VectorOperators.SUB, (byte) 0x20, lower);
+    }
+
+    @Override
+    void complement(byte[] src, byte[] dst) {
+        int bound = SPECIES.loopBound(src.length);
+        for (int i = 0; i < bound; i += LANES) {
+            complement(ByteVector.fromArray(SPECIES, src, i)).intoArray(dst, i);
+        }
+        Scalar.complement(src, dst, bound, src.length);
+    }
+
+    @Override
+    void reverseComplement(byte[] src, byte[] dst) {
+        int n = src.length;
+        int bound = SPECIES.loopBound(n);
+        for (int i = 0; i < bound; i += LANES) {
+            complement(ByteVector.fromArray(SPECIES, src, n - i - LANES).rearrange(REVERSE)).intoArray(dst, i);
+        }
+        Scalar.reverseComplement(src, dst, bound, n);
+    }
+
+    @Override
+    void replace(byte[] src, byte[] dst, byte from, byte to) {
+        int bound = SPECIES.loopBound(src.length);
+        ByteVector replacement = ByteVector.broadcast(SPECIES, to);
+        for (int i = 0; i < bound; i += LANES) {
+            ByteVector v = ByteVector.fromArray(SPECIES, src, i);
+            v.blend(replacement, v.eq(from)).intoArray(dst, i);
+        }
+        Scalar.replace(src, dst, from, to, bound, src.length);
+    }
+
+    @Override
+    long[] countBases(byte[] src, byte fourthBase) {
+        int bound = SPECIES.loopBound(src.length);
+        long a = 0, c = 0, g = 0, t = 0;
+        for (int i = 0; i < bound; i += LANES) {
+            ByteVector v = ByteVector.fromArray(SPECIES, src, i);
+            a += v.eq((byte) 'A').trueCount();
+            c += v.eq((byte) 'C').trueCount();
+            g += v.eq((byte) 'G').trueCount();
+            t += v.eq(fourthBase).trueCount();
+        }
+        for (int i = bound; i < src.length; i++) {
+            byte b = src[i];
+            a += b == 'A' ? 1 : 0;
+            c += b == 'C' ? 1 : 0;
+            g += b == 'G' ? 1 : 0;
+            t += b == fourthBase ? 1 : 0;
+        }
+        return new long[]{a, c, g, t};
+    }
+
+    @Override
+    String name() {
+        return "vector " + SPECIES.vectorBitSize() + "-bit";
+    }
+}